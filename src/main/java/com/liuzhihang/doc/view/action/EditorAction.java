@@ -97,17 +97,18 @@ public class EditorAction extends AnAction {
         }
 
         Settings settings = Settings.getInstance(project);
+        boolean isController = AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0);
         PsiMethod targetMethod = CustomPsiUtils.getTargetMethod(editor, psiFile);
         if (targetMethod != null) {
             // 当前方法不为空, 则必须在 Controller 或者接口中
             // 检查是否有 Controller 注解 且不是接口
-            if (!targetClass.isInterface() && !AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0)) {
+            if (!targetClass.isInterface() && !isController) {
                 presentation.setEnabledAndVisible(false);
                 return;
             }
 
             // Spring Controller 还需要检查方法是否满足条件
-            if (AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0)) {
+            if (isController) {
                 // 过滤掉私有和静态方法以及没有相关注解的方法
                 if (!SpringPsiUtils.isSpringMethod(project, targetMethod)) {
                     presentation.setEnabledAndVisible(false);
@@ -125,7 +126,7 @@ public class EditorAction extends AnAction {
 
         } else {
             // 否则当做普通 Bean 进行处理, 普通 JavaBean 不能是接口和 controller
-            if (targetClass.isInterface() && AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0)) {
+            if (targetClass.isInterface() && isController) {
                 presentation.setEnabledAndVisible(false);
             }
         }
@@ -92,14 +92,16 @@ public class EditorPreviewAction extends AnAction {
 
         Settings settings = Settings.getInstance(project);
 
+        boolean isController = AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0);
+
         // 检查是否有 Controller 注解 且不是接口
-        if (!targetClass.isInterface() && !AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0)) {
+        if (!targetClass.isInterface() && !isController) {
             presentation.setEnabledAndVisible(false);
             return;
         }
 
-        // Spring Controller 还需要检查方法是否满足条件
-        if (AnnotationUtil.isAnnotated(targetClass, settings.getContainClassAnnotationName(), 0)) {
+        // Spring Controller 还需要检查方法是否满足条件, 方法注解从缓存的 MappingInfo 中读取
+        if (isController) {
             PsiMethod targetMethod = CustomPsiUtils.getTargetMethod(editor, psiFile);
             // 过滤掉私有和静态方法以及没有相关注解的方法
             if (targetMethod != null) {
@@ -3,12 +3,10 @@ package com.liuzhihang.doc.view.action.toolbar;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.util.PsiUtil;
-import com.liuzhihang.doc.view.dto.DocView;
-import com.liuzhihang.doc.view.service.DocViewService;
-import com.liuzhihang.doc.view.service.impl.ToolWindowServiceImpl;
+import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.tool.DocViewFileNode;
 import com.liuzhihang.doc.view.tool.DocViewToolWindow;
 import com.liuzhihang.doc.view.tool.DocViewToolWindowFactory;
 import com.liuzhihang.doc.view.utils.ExportUtils;
@@ -16,9 +14,9 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * 工具栏 - 导出
@@ -29,6 +27,12 @@ import java.util.Map;
  */
 public class ExportAction extends AnAction {
 
+    private static final String MARKDOWN = "Markdown";
+    private static final String ZIP = "Markdown (zip)";
+    private static final String HTML = "HTML";
+    private static final String OPENAPI = "OpenAPI";
+    private static final String JSON = "JSON";
+
     @Override
     public void actionPerformed(@NotNull AnActionEvent actionEvent) {
         Project project = actionEvent.getProject();
@@ -37,29 +41,58 @@ public class ExportAction extends AnAction {
         assert tree != null;
         TreePath[] selectionPaths = tree.getSelectionPaths();
         assert selectionPaths != null;
-        Map<String, Map<String, DocView>> generatedDocView = new HashMap<>(32);
-        // 逐个文件处理
+        // 只收集文件, 文档在后台逐个生成写入, 选中目录、模块或项目时导出其下全部文件
+        Set<VirtualFile> fileSet = new LinkedHashSet<>();
         for (TreePath selectionPath : selectionPaths) {
             DefaultMutableTreeNode node = (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
-            if (node.getUserObject().toString().endsWith(".java")) {
-                String key = node.getParent().toString() + node.getUserObject();
-                VirtualFile virtualFile = ToolWindowServiceImpl.virtualFileCache.get(key);
-                PsiFile psiFile = PsiUtil.getPsiFile(project, virtualFile);
-                DocViewService docViewService = DocViewService.getInstance(project, psiFile);
-                assert docViewService != null;
-                // 如果文件生成成功
-                Map<String, DocView> docViewMap = docViewService.generatorDocView(project, psiFile);
-                if (docViewMap.size() > 0) {
-                    generatedDocView.put(psiFile.getName(), docViewMap);
+            collectFiles(node, fileSet);
+        }
+        if (fileSet.isEmpty()) {
+            return;
+        }
+        // 选择导出格式
+        List<VirtualFile> fileList = new ArrayList<>(fileSet);
+        List<String> formats = new ArrayList<>(Arrays.asList(MARKDOWN, ZIP, HTML, OPENAPI, JSON));
+        // 没有 markdown 插件时不能导出 HTML
+        if (!ExportUtils.isHtmlExportAvailable()) {
+            formats.remove(HTML);
+        }
+        JBPopupFactory.getInstance()
+                .createPopupChooserBuilder(formats)
+                .setTitle(DocViewBundle.message("export.format.title"))
+                .setItemChosenCallback(format -> {
+                    if (OPENAPI.equals(format)) {
+                        ExportUtils.bathExportOpenApi(project, fileList);
+                    } else if (JSON.equals(format)) {
+                        ExportUtils.bathExportJson(project, fileList);
+                    } else if (HTML.equals(format)) {
+                        ExportUtils.bathExportHtml(project, fileList);
+                    } else if (ZIP.equals(format)) {
+                        ExportUtils.bathExportZip(project, fileList);
+                    } else {
+                        ExportUtils.bathExportMarkdown(project, fileList);
+                    }
+                })
+                .createPopup()
+                .showInBestPositionFor(actionEvent.getDataContext());
+    }
+
+    /**
+     * 收集节点下的全部文件
+     *
+     * @param node    选中的节点
+     * @param fileSet 文件
+     */
+    private void collectFiles(DefaultMutableTreeNode node, Set<VirtualFile> fileSet) {
+        Enumeration<TreeNode> enumeration = node.depthFirstEnumeration();
+        while (enumeration.hasMoreElements()) {
+            TreeNode child = enumeration.nextElement();
+            if (child instanceof DocViewFileNode) {
+                VirtualFile virtualFile = ((DocViewFileNode) child).getVirtualFile();
+                if (virtualFile != null && virtualFile.isValid()) {
+                    fileSet.add(virtualFile);
                 }
-            } else {
-                // TODO: 如果选择的是目录，则导出该目录下全部内容
-//                for (int i = 0; i < node.getChildCount(); i++) {}
             }
         }
-        // 导出
-        if (generatedDocView.size() > 0) {
-            ExportUtils.bathExportMarkdown(project, generatedDocView);
-        }
     }
 }
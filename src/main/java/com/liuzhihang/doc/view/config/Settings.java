@@ -5,7 +5,10 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Transient;
 import com.liuzhihang.doc.view.constant.AnnotationConstant;
 import com.liuzhihang.doc.view.constant.ValidationConstant;
 import org.jetbrains.annotations.NotNull;
@@ -26,6 +29,19 @@ import java.util.Set;
 @State(name = "SettingsComponent", storages = {@Storage("DocViewSettings.xml")})
 public class Settings implements PersistentStateComponent<Settings> {
 
+    public static final int DEFAULT_MAX_DEPTH = 10;
+    public static final int MIN_MAX_DEPTH = 1;
+    public static final int MAX_MAX_DEPTH = 50;
+
+    public static final int DEFAULT_MAX_FIELD_COUNT = 1000;
+    public static final int MIN_MAX_FIELD_COUNT = 1;
+    public static final int MAX_MAX_FIELD_COUNT = 100000;
+
+    /**
+     * Deflater.DEFAULT_COMPRESSION
+     */
+    public static final int MIN_ZIP_COMPRESSION_LEVEL = -1;
+    public static final int MAX_ZIP_COMPRESSION_LEVEL = 9;
 
     /**
      * 包含类注解名称
@@ -74,6 +90,37 @@ public class Settings implements PersistentStateComponent<Settings> {
         add("serialVersionUID");
     }};
 
+    /**
+     * 对象嵌套的最大解析深度
+     */
+    private Integer maxDepth = DEFAULT_MAX_DEPTH;
+
+    /**
+     * 单个对象最多解析的字段数量
+     */
+    private Integer maxFieldCount = DEFAULT_MAX_FIELD_COUNT;
+
+    /**
+     * 是否并行生成类中各方法的文档
+     */
+    private Boolean parallelBuild = true;
+
+    /**
+     * 导出 zip 时压缩条目的压缩级别 0-9, 为空或者 -1 时使用默认级别, 0 时全部条目不压缩直接存储.
+     * 很小的条目压缩后基本不会变小, 总是直接存储
+     */
+    private Integer zipCompressionLevel;
+
+    /**
+     * 导出 markdown 时嵌套对象是否单独生成 Models 部分, 参数表格中只有第一层字段
+     */
+    private Boolean exportModels = false;
+
+    /**
+     * 设置版本, 设置变动后递增, 不持久化
+     */
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+
     public static Settings getInstance(@NotNull Project project) {
         return ServiceManager.getService(project, Settings.class);
     }
@@ -88,6 +135,12 @@ public class Settings implements PersistentStateComponent<Settings> {
     @Override
     public void loadState(@NotNull Settings state) {
         XmlSerializerUtil.copyBean(state, this);
+        modificationTracker.incModificationCount();
+    }
+
+    @Transient
+    public ModificationTracker getModificationTracker() {
+        return modificationTracker;
     }
 
     public Set<String> getContainClassAnnotationName() {
@@ -96,6 +149,7 @@ public class Settings implements PersistentStateComponent<Settings> {
 
     public void setContainClassAnnotationName(Set<String> containClassAnnotationName) {
         this.containClassAnnotationName = containClassAnnotationName;
+        modificationTracker.incModificationCount();
     }
 
     public Set<String> getContainMethodAnnotationName() {
@@ -104,6 +158,7 @@ public class Settings implements PersistentStateComponent<Settings> {
 
     public void setContainMethodAnnotationName(Set<String> containMethodAnnotationName) {
         this.containMethodAnnotationName = containMethodAnnotationName;
+        modificationTracker.incModificationCount();
     }
 
     public Set<String> getExcludeParamTypes() {
@@ -112,6 +167,7 @@ public class Settings implements PersistentStateComponent<Settings> {
 
     public void setExcludeParamTypes(Set<String> excludeParamTypes) {
         this.excludeParamTypes = excludeParamTypes;
+        modificationTracker.incModificationCount();
     }
 
     public Set<String> getFieldRequiredAnnotationName() {
@@ -120,6 +176,7 @@ public class Settings implements PersistentStateComponent<Settings> {
 
     public void setFieldRequiredAnnotationName(Set<String> fieldRequiredAnnotationName) {
         this.fieldRequiredAnnotationName = fieldRequiredAnnotationName;
+        modificationTracker.incModificationCount();
     }
 
     public Set<String> getExcludeFieldNames() {
@@ -128,5 +185,64 @@ public class Settings implements PersistentStateComponent<Settings> {
 
     public void setExcludeFieldNames(Set<String> excludeFieldNames) {
         this.excludeFieldNames = excludeFieldNames;
+        modificationTracker.incModificationCount();
+    }
+
+    /**
+     * 配置文件可能被手动修改, 读取时限制在有效范围内
+     */
+    public Integer getMaxDepth() {
+        return clamp(maxDepth, DEFAULT_MAX_DEPTH, MIN_MAX_DEPTH, MAX_MAX_DEPTH);
+    }
+
+    public void setMaxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+        modificationTracker.incModificationCount();
+    }
+
+    public Integer getMaxFieldCount() {
+        return clamp(maxFieldCount, DEFAULT_MAX_FIELD_COUNT, MIN_MAX_FIELD_COUNT, MAX_MAX_FIELD_COUNT);
+    }
+
+    public void setMaxFieldCount(Integer maxFieldCount) {
+        this.maxFieldCount = maxFieldCount;
+        modificationTracker.incModificationCount();
+    }
+
+    public Boolean getParallelBuild() {
+        return parallelBuild == null || parallelBuild;
+    }
+
+    public void setParallelBuild(Boolean parallelBuild) {
+        this.parallelBuild = parallelBuild;
+        modificationTracker.incModificationCount();
+    }
+
+    public Integer getZipCompressionLevel() {
+        if (zipCompressionLevel == null) {
+            return null;
+        }
+        return clamp(zipCompressionLevel, MIN_ZIP_COMPRESSION_LEVEL, MIN_ZIP_COMPRESSION_LEVEL, MAX_ZIP_COMPRESSION_LEVEL);
+    }
+
+    public void setZipCompressionLevel(Integer zipCompressionLevel) {
+        this.zipCompressionLevel = zipCompressionLevel;
+        modificationTracker.incModificationCount();
+    }
+
+    public Boolean getExportModels() {
+        return exportModels != null && exportModels;
+    }
+
+    public void setExportModels(Boolean exportModels) {
+        this.exportModels = exportModels;
+        modificationTracker.incModificationCount();
+    }
+
+    private static int clamp(Integer value, int defaultValue, int min, int max) {
+        if (value == null) {
+            return defaultValue;
+        }
+        return Math.max(min, Math.min(max, value));
     }
 }
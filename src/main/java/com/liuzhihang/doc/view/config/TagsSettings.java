@@ -5,7 +5,10 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Transient;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -23,6 +26,11 @@ public class TagsSettings implements PersistentStateComponent<TagsSettings> {
     private String required = "required";
 
 
+    /**
+     * 设置版本, 设置变动后递增, 不持久化
+     */
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+
     public static TagsSettings getInstance(@NotNull Project project) {
         return ServiceManager.getService(project, TagsSettings.class);
     }
@@ -37,6 +45,12 @@ public class TagsSettings implements PersistentStateComponent<TagsSettings> {
     @Override
     public void loadState(@NotNull TagsSettings state) {
         XmlSerializerUtil.copyBean(state, this);
+        modificationTracker.incModificationCount();
+    }
+
+    @Transient
+    public ModificationTracker getModificationTracker() {
+        return modificationTracker;
     }
 
     public String getName() {
@@ -45,6 +59,7 @@ public class TagsSettings implements PersistentStateComponent<TagsSettings> {
 
     public void setName(String name) {
         this.name = name;
+        modificationTracker.incModificationCount();
     }
 
     public String getRequired() {
@@ -53,5 +68,6 @@ public class TagsSettings implements PersistentStateComponent<TagsSettings> {
 
     public void setRequired(String required) {
         this.required = required;
+        modificationTracker.incModificationCount();
     }
 }
@@ -5,8 +5,12 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Transient;
 import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.utils.VelocityUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -25,6 +29,11 @@ public class TemplateSettings implements PersistentStateComponent<TemplateSettin
     private String springTemplate = DocViewBundle.message("template.spring.init");
     private String dubboTemplate = DocViewBundle.message("template.dubbo.init");
 
+    /**
+     * 模版版本, 模版变动后递增, 不持久化
+     */
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+
     public static TemplateSettings getInstance(@NotNull Project project) {
         return ServiceManager.getService(project, TemplateSettings.class);
     }
@@ -39,15 +48,24 @@ public class TemplateSettings implements PersistentStateComponent<TemplateSettin
     @Override
     public void loadState(@NotNull TemplateSettings state) {
         XmlSerializerUtil.copyBean(state, this);
+        VelocityUtils.clearCache();
+        modificationTracker.incModificationCount();
     }
 
 
+    @Transient
+    public ModificationTracker getModificationTracker() {
+        return modificationTracker;
+    }
+
     public String getSpringTemplate() {
         return springTemplate;
     }
 
     public void setSpringTemplate(String springTemplate) {
         this.springTemplate = springTemplate;
+        VelocityUtils.clearCache();
+        modificationTracker.incModificationCount();
     }
 
     public String getDubboTemplate() {
@@ -56,5 +74,7 @@ public class TemplateSettings implements PersistentStateComponent<TemplateSettin
 
     public void setDubboTemplate(String dubboTemplate) {
         this.dubboTemplate = dubboTemplate;
+        VelocityUtils.clearCache();
+        modificationTracker.incModificationCount();
     }
 }
@@ -61,5 +61,12 @@ public class AnnotationConstant {
     public static final String MATRIX_VARIABLE = "org.springframework.web.bind.annotation.MatrixVariable";
     public static final String MODEL_ATTRIBUTE = "org.springframework.web.bind.annotation.ModelAttribute";
 
+    /**
+     * dubbo 服务实现类
+     */
+    public static final String DUBBO_SERVICE = "org.apache.dubbo.config.annotation.DubboService";
+    public static final String APACHE_DUBBO_SERVICE = "org.apache.dubbo.config.annotation.Service";
+    public static final String ALIBABA_DUBBO_SERVICE = "com.alibaba.dubbo.config.annotation.Service";
+
 
 }
@@ -3,6 +3,7 @@ package com.liuzhihang.doc.view.dto;
 
 import com.intellij.psi.PsiElement;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,8 +40,37 @@ public class Body {
      */
     private String type;
 
+    /**
+     * 嵌套对象的类全名, 集合和 Map 为元素的类全名, 不是对象时为 null
+     */
+    private String className;
+
     private List<Body> bodyList;
 
+    /**
+     * 复制, 嵌套的字段一并复制, 缓存中的 Body 被多个文档共用, 修改前需要复制
+     *
+     * @return 新的 Body
+     */
+    public Body copy() {
+        Body body = new Body();
+        body.setPsiElement(psiElement);
+        body.setRequired(required);
+        body.setName(name);
+        body.setExample(example);
+        body.setDesc(desc);
+        body.setType(type);
+        body.setClassName(className);
+        if (bodyList != null) {
+            List<Body> childList = new ArrayList<>(bodyList.size());
+            for (Body child : bodyList) {
+                childList.add(child.copy());
+            }
+            body.setBodyList(childList);
+        }
+        return body;
+    }
+
 
     public Boolean getRequired() {
         return required;
@@ -97,4 +127,12 @@ public class Body {
     public void setPsiElement(PsiElement psiElement) {
         this.psiElement = psiElement;
     }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
 }
@@ -2,6 +2,7 @@ package com.liuzhihang.doc.view.dto;
 
 import com.intellij.psi.PsiMethod;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,6 +22,11 @@ public class DocView {
 
     private String className;
 
+    /**
+     * 方法名
+     */
+    private String methodName;
+
     /**
      * 文档名称
      */
@@ -68,6 +74,16 @@ public class DocView {
      */
     private List<Body> respBodyList;
 
+    /**
+     * 请求体的类型, 包含泛型参数, 基本类型时为空
+     */
+    private String reqBodyClassName;
+
+    /**
+     * 返回值的类型, 集合时为元素的类型, 基本类型时为空
+     */
+    private String respBodyClassName;
+
 
     /**
      * 请求参数
@@ -103,6 +119,53 @@ public class DocView {
     public DocView() {
     }
 
+    /**
+     * 复制, 参数列表一并复制, 缓存中的文档被多处共用, 修改前需要复制
+     *
+     * @return 新的 DocView
+     */
+    public DocView copy() {
+        DocView docView = new DocView(name);
+        docView.setPsiMethod(psiMethod);
+        docView.setFullClassName(fullClassName);
+        docView.setClassName(className);
+        docView.setMethodName(methodName);
+        docView.setDesc(desc);
+        docView.setDomain(domain == null ? null : new ArrayList<>(domain));
+        docView.setPath(path);
+        docView.setMethod(method);
+        docView.setChangeLog(changeLog);
+        if (headerList != null) {
+            List<Header> copyList = new ArrayList<>(headerList.size());
+            headerList.forEach(header -> copyList.add(header.copy()));
+            docView.setHeaderList(copyList);
+        }
+        docView.setReqBodyList(copyBodyList(reqBodyList));
+        docView.setRespBodyList(copyBodyList(respBodyList));
+        docView.setReqBodyClassName(reqBodyClassName);
+        docView.setRespBodyClassName(respBodyClassName);
+        if (reqParamList != null) {
+            List<Param> copyList = new ArrayList<>(reqParamList.size());
+            reqParamList.forEach(param -> copyList.add(param.copy()));
+            docView.setReqParamList(copyList);
+        }
+        docView.setReqExample(reqExample);
+        docView.setReqExampleType(reqExampleType);
+        docView.setRespExample(respExample);
+        docView.setRemark(remark);
+        docView.setType(type);
+        return docView;
+    }
+
+    private static List<Body> copyBodyList(List<Body> bodyList) {
+        if (bodyList == null) {
+            return null;
+        }
+        List<Body> copyList = new ArrayList<>(bodyList.size());
+        bodyList.forEach(body -> copyList.add(body.copy()));
+        return copyList;
+    }
+
     public String getType() {
         return type;
     }
@@ -246,4 +309,28 @@ public class DocView {
     public void setPsiMethod(PsiMethod psiMethod) {
         this.psiMethod = psiMethod;
     }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public void setMethodName(String methodName) {
+        this.methodName = methodName;
+    }
+
+    public String getReqBodyClassName() {
+        return reqBodyClassName;
+    }
+
+    public void setReqBodyClassName(String reqBodyClassName) {
+        this.reqBodyClassName = reqBodyClassName;
+    }
+
+    public String getRespBodyClassName() {
+        return respBodyClassName;
+    }
+
+    public void setRespBodyClassName(String respBodyClassName) {
+        this.respBodyClassName = respBodyClassName;
+    }
 }
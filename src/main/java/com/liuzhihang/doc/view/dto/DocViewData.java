@@ -7,6 +7,8 @@ import org.apache.commons.collections.CollectionUtils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -92,6 +94,14 @@ public class DocViewData {
     private final String type;
 
     public DocViewData(DocView docView) {
+        this(docView, null);
+    }
+
+    /**
+     * @param docView 文档
+     * @param models  不为空时嵌套对象生成到 Models 中, 参数表格只有第一层字段
+     */
+    public DocViewData(DocView docView, DocViewModels models) {
 
         this.fullClassName = docView.getFullClassName();
         this.name = docView.getName();
@@ -106,11 +116,13 @@ public class DocViewData {
         this.requestParamDataList = buildReqParamDataList(docView.getReqParamList());
         this.requestParam = buildReqParam(requestParamDataList);
 
-        this.requestBodyDataList = buildBodyDataList(docView.getReqBodyList());
+        this.requestBodyDataList = models == null ? buildBodyDataList(docView.getReqBodyList())
+                : models.buildBodyDataList(docView.getReqBodyList());
         this.requestBody = buildBodyParam(requestBodyDataList);
         this.requestExample = buildReqExample(docView.getReqExampleType(), docView.getReqExample());
 
-        this.responseParamDataList = buildBodyDataList(docView.getRespBodyList());
+        this.responseParamDataList = models == null ? buildBodyDataList(docView.getRespBodyList())
+                : models.buildBodyDataList(docView.getRespBodyList());
         this.responseParam = buildBodyParam(responseParamDataList);
         this.responseExample = buildRespExample(docView.getReqExampleType(), docView.getRespExample());
 
@@ -143,7 +155,7 @@ public class DocViewData {
     }
 
     @NotNull
-    private static String buildBodyParam(List<ParamData> dataList) {
+    static String buildBodyParam(List<ParamData> dataList) {
 
         if (CollectionUtils.isEmpty(dataList)) {
             return "";
@@ -165,14 +177,47 @@ public class DocViewData {
     }
 
     public static String buildMarkdownText(Project project, DocView docView) {
+        return buildMarkdownText(project, docView, null);
+    }
+
+    /**
+     * 按照模版生成, 嵌套对象生成到 Models 中
+     *
+     * @param project 当前项目
+     * @param docView 文档
+     * @param models  Models, 为空时嵌套对象展开在参数表格中
+     * @return markdown
+     */
+    public static String buildMarkdownText(Project project, DocView docView, DocViewModels models) {
+
+        DocViewData docViewData = new DocViewData(docView, models);
+
+        return VelocityUtils.convert(getTemplate(project, docView), docViewData);
+    }
+
+    /**
+     * 按照模版直接写入 writer
+     *
+     * @param project 当前项目
+     * @param docView 文档
+     * @param models  Models, 为空时嵌套对象展开在参数表格中
+     * @param writer  输出
+     * @throws IOException 写入失败
+     */
+    public static void writeMarkdownText(Project project, DocView docView, DocViewModels models, Writer writer) throws IOException {
+
+        DocViewData docViewData = new DocViewData(docView, models);
+
+        VelocityUtils.convert(getTemplate(project, docView), docViewData, writer);
+    }
 
-        DocViewData docViewData = new DocViewData(docView);
+    private static String getTemplate(Project project, DocView docView) {
 
         if (docView.getType().equalsIgnoreCase("Dubbo")) {
-            return VelocityUtils.convert(TemplateSettings.getInstance(project).getDubboTemplate(), docViewData);
+            return TemplateSettings.getInstance(project).getDubboTemplate();
         } else {
             // 按照 Spring 模版
-            return VelocityUtils.convert(TemplateSettings.getInstance(project).getSpringTemplate(), docViewData);
+            return TemplateSettings.getInstance(project).getSpringTemplate();
         }
     }
 
@@ -0,0 +1,166 @@
+package com.liuzhihang.doc.view.dto;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.liuzhihang.doc.view.utils.ParamContext;
+import org.apache.commons.collections.CollectionUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * 导出时的 Models 部分
+ * <p>
+ * 接口的参数表格中只列出第一层字段, 嵌套的对象按类全名只生成一次表格, 参数表格中的类型链接到对应的表格.
+ * 同一个对象的多个接口共用, 渲染可能并行, 方法加锁
+ *
+ * @author liuzhihang
+ * @date 2021/4/15 11:10
+ */
+public class DocViewModels {
+
+    private static final String ANCHOR_PREFIX = "model-";
+
+    /**
+     * Models 所在的文件, 和接口在同一个文件时为空
+     */
+    private final String modelsFile;
+
+    /**
+     * 类全名 -> 对象, 按第一次出现的顺序
+     */
+    private final Map<String, Model> modelMap = new LinkedHashMap<>();
+
+    /**
+     * 已使用的锚点, 简单类名重复时追加序号
+     */
+    private final Set<String> anchorSet = new HashSet<>();
+
+    /**
+     * @param modelsFile Models 所在的文件, 和接口在同一个文件时为空
+     */
+    public DocViewModels(String modelsFile) {
+        this.modelsFile = StringUtil.notNullize(modelsFile);
+    }
+
+    /**
+     * 生成第一层字段, 嵌套对象注册到 Models 中, 类型链接到对应的表格
+     *
+     * @param bodyList 参数
+     * @return 参数表格数据
+     */
+    @NotNull
+    public synchronized List<ParamData> buildBodyDataList(List<Body> bodyList) {
+
+        List<ParamData> dataList = new ArrayList<>();
+        if (CollectionUtils.isEmpty(bodyList)) {
+            return dataList;
+        }
+
+        for (Body body : bodyList) {
+            if (isRefPlaceholder(body)) {
+                continue;
+            }
+            ParamData paramData = ParamData.convertFromBody(body);
+            if (body.getClassName() != null) {
+                Model model = register(body);
+                paramData.setType("[" + escapeLinkText(paramData.getType()) + "](" + modelsFile + "#" + model.anchor + ")");
+            }
+            dataList.add(paramData);
+        }
+        return dataList;
+    }
+
+    /**
+     * 生成 Models 部分
+     *
+     * @return markdown, 没有对象时为空
+     */
+    @NotNull
+    public synchronized String buildModels() {
+
+        if (modelMap.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder("## Models\n\n");
+
+        // 生成表格时可能注册新的对象, 按下标遍历
+        List<Model> modelList = new ArrayList<>(modelMap.values());
+        for (int i = 0; i < modelList.size(); i++) {
+            Model model = modelList.get(i);
+            builder.append("<a id=\"").append(model.anchor).append("\"></a>\n\n")
+                    .append("### ").append(model.name).append("\n\n")
+                    .append(model.qualifiedName).append("\n\n")
+                    .append(DocViewData.buildBodyParam(buildBodyDataList(model.bodyList)))
+                    .append("\n");
+
+            if (modelMap.size() > modelList.size()) {
+                modelList = new ArrayList<>(modelMap.values());
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 注册对象, 已存在时保留字段更完整的一个
+     * <p>
+     * 循环引用或者超过深度时字段不完整
+     */
+    @NotNull
+    private Model register(@NotNull Body body) {
+
+        List<Body> bodyList = body.getBodyList() == null ? Collections.emptyList() : body.getBodyList();
+
+        Model model = modelMap.get(body.getClassName());
+        if (model == null) {
+            String name = StringUtil.getShortName(body.getClassName());
+            String anchor = ANCHOR_PREFIX + name.toLowerCase();
+            for (int index = 1; !anchorSet.add(anchor); index++) {
+                anchor = ANCHOR_PREFIX + name.toLowerCase() + "-" + index;
+            }
+            model = new Model(body.getClassName(), name, anchor, bodyList);
+            modelMap.put(body.getClassName(), model);
+        } else if (fieldCount(bodyList) > fieldCount(model.bodyList)) {
+            model.bodyList = bodyList;
+        }
+        return model;
+    }
+
+    /**
+     * 链接文字中的泛型尖括号会被当作 HTML 标签, 方括号会提前结束链接, 需要转义
+     *
+     * @param text 类型, 例如 List<User>
+     * @return 转义后的文字, 例如 List&lt;User&gt;
+     */
+    @NotNull
+    private static String escapeLinkText(String text) {
+        return StringUtil.notNullize(text)
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("[", "\\[")
+                .replace("]", "\\]");
+    }
+
+    private static long fieldCount(@NotNull List<Body> bodyList) {
+        return bodyList.stream().filter(body -> !isRefPlaceholder(body)).count();
+    }
+
+    private static boolean isRefPlaceholder(@NotNull Body body) {
+        return body.getName() != null && body.getName().startsWith(ParamContext.REF_PREFIX);
+    }
+
+    private static class Model {
+
+        private final String qualifiedName;
+        private final String name;
+        private final String anchor;
+        private List<Body> bodyList;
+
+        private Model(String qualifiedName, String name, String anchor, List<Body> bodyList) {
+            this.qualifiedName = qualifiedName;
+            this.name = name;
+            this.anchor = anchor;
+            this.bodyList = bodyList;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.liuzhihang.doc.view.dto;
+
+import java.util.List;
+
+/**
+ * 索引中的类摘要
+ * <p>
+ * 注解和接口名称按 import 转换为全名, 无法确定时为简单类名
+ *
+ * @author liuzhihang
+ * @date 2021/4/17 10:10
+ */
+public class EndpointClassSummary {
+
+    /**
+     * 类全名
+     */
+    private final String qualifiedName;
+
+    /**
+     * 是否为接口
+     */
+    private final boolean isInterface;
+
+    /**
+     * 类上的注解
+     */
+    private final List<String> annotations;
+
+    /**
+     * 实现的接口
+     */
+    private final List<String> interfaces;
+
+    /**
+     * 类中的接口方法
+     */
+    private final List<EndpointSummary> endpoints;
+
+    public EndpointClassSummary(String qualifiedName, boolean isInterface, List<String> annotations,
+                                List<String> interfaces, List<EndpointSummary> endpoints) {
+        this.qualifiedName = qualifiedName;
+        this.isInterface = isInterface;
+        this.annotations = annotations;
+        this.interfaces = interfaces;
+        this.endpoints = endpoints;
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    public boolean isInterface() {
+        return isInterface;
+    }
+
+    public List<String> getAnnotations() {
+        return annotations;
+    }
+
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    public List<EndpointSummary> getEndpoints() {
+        return endpoints;
+    }
+}
@@ -0,0 +1,106 @@
+package com.liuzhihang.doc.view.dto;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+
+import java.util.Arrays;
+
+/**
+ * 接口搜索中的一个接口, 搜索时使用的小写名称在创建时计算
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 20:10
+ */
+public class EndpointItem {
+
+    /**
+     * 接口所在文件
+     */
+    private final VirtualFile virtualFile;
+
+    /**
+     * 类简单名称
+     */
+    private final String className;
+
+    private final EndpointSummary endpoint;
+
+    /**
+     * 文档名称
+     */
+    private final String docName;
+
+    /**
+     * 小写的路径, 按 / 和 # 拆分, 不包含空路径
+     */
+    private final String[] pathSegments;
+
+    private final String lowerDocName;
+    private final String lowerMethodName;
+    private final String lowerClassName;
+
+    public EndpointItem(VirtualFile virtualFile, String className, EndpointSummary endpoint, String docName) {
+        this.virtualFile = virtualFile;
+        this.className = className;
+        this.endpoint = endpoint;
+        this.docName = docName;
+        this.pathSegments = splitPath(endpoint.getPath());
+        this.lowerDocName = StringUtil.toLowerCase(docName);
+        this.lowerMethodName = StringUtil.toLowerCase(endpoint.getMethodName());
+        this.lowerClassName = StringUtil.toLowerCase(className);
+    }
+
+    /**
+     * 拆分路径, 忽略协议和域名以及请求参数
+     *
+     * @param path 路径或者完整的 url
+     * @return 小写的路径
+     */
+    public static String[] splitPath(String path) {
+        int index = path.indexOf("://");
+        if (index >= 0) {
+            int start = path.indexOf('/', index + 3);
+            path = start < 0 ? "" : path.substring(start);
+        }
+        index = path.indexOf('?');
+        if (index >= 0) {
+            path = path.substring(0, index);
+        }
+        return Arrays.stream(path.split("[/#]"))
+                .filter(StringUtil::isNotEmpty)
+                .map(StringUtil::toLowerCase)
+                .toArray(String[]::new);
+    }
+
+    public VirtualFile getVirtualFile() {
+        return virtualFile;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public EndpointSummary getEndpoint() {
+        return endpoint;
+    }
+
+    public String getDocName() {
+        return docName;
+    }
+
+    public String[] getPathSegments() {
+        return pathSegments;
+    }
+
+    public String getLowerDocName() {
+        return lowerDocName;
+    }
+
+    public String getLowerMethodName() {
+        return lowerMethodName;
+    }
+
+    public String getLowerClassName() {
+        return lowerClassName;
+    }
+}
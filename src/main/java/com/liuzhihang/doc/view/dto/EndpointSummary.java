@@ -0,0 +1,88 @@
+package com.liuzhihang.doc.view.dto;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+
+/**
+ * 索引中的接口摘要, 不需要解析 PSI 即可展示和搜索
+ *
+ * @author liuzhihang
+ * @date 2021/4/17 10:10
+ */
+public class EndpointSummary {
+
+    /**
+     * 方法名
+     */
+    private final String methodName;
+
+    /**
+     * 请求方式, Dubbo 接口为 Dubbo
+     */
+    private final String httpMethod;
+
+    /**
+     * 完整路径, Dubbo 接口为 类名#方法名
+     */
+    private final String path;
+
+    /**
+     * 方法注释中的自定义标签 标签名 -> 内容
+     */
+    private final Map<String, String> tags;
+
+    /**
+     * 方法及其所在类的声明、注释、导入的摘要, 任意一处变动时改变, 见 EndpointIndex#fingerprint
+     */
+    private final int fingerprint;
+
+    /**
+     * 方法名在文件中的位置
+     */
+    private final int offset;
+
+    public EndpointSummary(String methodName, String httpMethod, String path, Map<String, String> tags, int fingerprint, int offset) {
+        this.methodName = methodName;
+        this.httpMethod = httpMethod;
+        this.path = path;
+        this.tags = tags;
+        this.fingerprint = fingerprint;
+        this.offset = offset;
+    }
+
+    /**
+     * 文档名称, 注释中没有名称标签时为方法名
+     *
+     * @param nameTag 名称标签, 见 TagsSettings
+     * @return 文档名称
+     */
+    public String getDocName(String nameTag) {
+        String name = tags.get(nameTag);
+        return StringUtils.isBlank(name) ? methodName : name;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
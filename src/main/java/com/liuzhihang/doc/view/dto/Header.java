@@ -32,6 +32,21 @@ public class Header {
      */
     private String desc;
 
+    /**
+     * 复制, 缓存中的文档被多处共用, 修改前需要复制
+     *
+     * @return 新的 Header
+     */
+    public Header copy() {
+        Header header = new Header();
+        header.setPsiElement(psiElement);
+        header.setRequired(required);
+        header.setName(name);
+        header.setValue(value);
+        header.setDesc(desc);
+        return header;
+    }
+
     public Boolean getRequired() {
         return required;
     }
@@ -0,0 +1,73 @@
+package com.liuzhihang.doc.view.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 方法上 Spring Mapping 注解解析后的结果
+ * <p>
+ * 遍历一次方法上的注解得到, 避免重复判断注解
+ *
+ * @author liuzhihang
+ * @date 2021/4/9 10:30
+ */
+public class MappingInfo {
+
+    /**
+     * 方法上所有注解的全名
+     */
+    private final Set<String> annotationNames;
+
+    /**
+     * 请求方式, 如 GET POST
+     */
+    private final List<String> methods;
+
+    /**
+     * 方法上的路径
+     */
+    private final List<String> paths;
+
+    private final List<String> consumes;
+
+    private final List<String> produces;
+
+    /**
+     * 所在类上的路径
+     */
+    private final String basePath;
+
+    public MappingInfo(Set<String> annotationNames, List<String> methods, List<String> paths,
+                       List<String> consumes, List<String> produces, String basePath) {
+        this.annotationNames = annotationNames;
+        this.methods = methods;
+        this.paths = paths;
+        this.consumes = consumes;
+        this.produces = produces;
+        this.basePath = basePath;
+    }
+
+    public Set<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    public List<String> getMethods() {
+        return methods;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public List<String> getConsumes() {
+        return consumes;
+    }
+
+    public List<String> getProduces() {
+        return produces;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+}
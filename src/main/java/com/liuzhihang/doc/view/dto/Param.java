@@ -37,6 +37,28 @@ public class Param {
      */
     private String type;
 
+    /**
+     * 是否为路径参数 @PathVariable
+     */
+    private boolean pathVariable;
+
+
+    /**
+     * 复制, 缓存中的文档被多处共用, 修改前需要复制
+     *
+     * @return 新的 Param
+     */
+    public Param copy() {
+        Param param = new Param();
+        param.setPsiElement(psiElement);
+        param.setRequired(required);
+        param.setName(name);
+        param.setExample(example);
+        param.setDesc(desc);
+        param.setType(type);
+        param.setPathVariable(pathVariable);
+        return param;
+    }
 
     public Boolean getRequired() {
         return required;
@@ -85,4 +107,12 @@ public class Param {
     public void setPsiElement(PsiElement psiElement) {
         this.psiElement = psiElement;
     }
+
+    public boolean isPathVariable() {
+        return pathVariable;
+    }
+
+    public void setPathVariable(boolean pathVariable) {
+        this.pathVariable = pathVariable;
+    }
 }
@@ -0,0 +1,135 @@
+package com.liuzhihang.doc.view.dto;
+
+import java.util.*;
+
+/**
+ * 一次遍历类字段得到的结果
+ * <p>
+ * 同时包含参数表格使用的 Body 列表和示例 Json 使用的字段默认值
+ *
+ * @author liuzhihang
+ * @date 2021/4/8 16:05
+ */
+public class TypeSchema {
+
+    /**
+     * 字段列表
+     */
+    private final List<Body> bodyList;
+
+    /**
+     * 字段名 -> 默认值
+     */
+    private final Map<String, Object> fieldMap;
+
+    /**
+     * 展开的层数, 嵌套类复用时判断深度限制
+     */
+    private final int depth;
+
+    /**
+     * 解析的字段数量, 嵌套类复用时判断字段数量限制
+     */
+    private final int fieldCount;
+
+    /**
+     * 展开的全部类的全名, 嵌套类复用时判断循环引用
+     */
+    private final Set<String> classNames;
+
+    public TypeSchema(List<Body> bodyList, Map<String, Object> fieldMap) {
+        this(bodyList, fieldMap, 0, 0, Collections.emptySet());
+    }
+
+    public TypeSchema(List<Body> bodyList, Map<String, Object> fieldMap, int depth, int fieldCount, Set<String> classNames) {
+        this.bodyList = Collections.unmodifiableList(bodyList);
+        this.fieldMap = Collections.unmodifiableMap(fieldMap);
+        this.depth = depth;
+        this.fieldCount = fieldCount;
+        this.classNames = Collections.unmodifiableSet(classNames);
+    }
+
+    /**
+     * 缓存中共用的字段列表, 只读
+     *
+     * @return 字段列表
+     */
+    public List<Body> getBodyList() {
+        return bodyList;
+    }
+
+    /**
+     * 缓存中共用的默认值, 只读
+     *
+     * @return 字段名 -> 默认值
+     */
+    public Map<String, Object> getFieldMap() {
+        return fieldMap;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public Set<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * 复制整个结构, 字段和默认值一并复制
+     *
+     * @return 类型结构
+     */
+    public TypeSchema copy() {
+        return new TypeSchema(copyBodyList(), copyFieldMap(), depth, fieldCount, new HashSet<>(classNames));
+    }
+
+    /**
+     * 复制字段列表, 嵌套的字段一并复制, 可以修改
+     *
+     * @return 字段列表
+     */
+    public List<Body> copyBodyList() {
+        List<Body> copyList = new ArrayList<>(bodyList.size());
+        for (Body body : bodyList) {
+            copyList.add(body.copy());
+        }
+        return copyList;
+    }
+
+    /**
+     * 复制默认值, 嵌套的 Map、集合和数组一并复制, 可以修改
+     *
+     * @return 字段名 -> 默认值
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> copyFieldMap() {
+        return (Map<String, Object>) copyValue(fieldMap);
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copyMap = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> copyMap.put(k, copyValue(v)));
+            return copyMap;
+        }
+        if (value instanceof Collection) {
+            List<Object> copyList = new ArrayList<>();
+            ((Collection<?>) value).forEach(v -> copyList.add(copyValue(v)));
+            return copyList;
+        }
+        if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            Object[] copyArray = new Object[array.length];
+            for (int i = 0; i < array.length; i++) {
+                copyArray[i] = copyValue(array[i]);
+            }
+            return copyArray;
+        }
+        return value;
+    }
+}
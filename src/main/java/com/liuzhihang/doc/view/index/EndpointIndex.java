@@ -0,0 +1,474 @@
+package com.liuzhihang.doc.view.index;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.*;
+import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.javadoc.PsiDocTag;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.liuzhihang.doc.view.dto.EndpointClassSummary;
+import com.liuzhihang.doc.view.dto.EndpointSummary;
+import com.liuzhihang.doc.view.utils.CustomPsiCommentUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 接口摘要索引, 分类 -> 文件中第一个类的接口摘要
+ * <p>
+ * 只根据单个文件的语法生成, 不解析引用, 也不依赖项目配置; 使用时按分类查找, 再按配置过滤.
+ * 导出和预览只处理文件中的第一个类, 索引也只保存第一个类. 索引会持久保存, 重启后只重新索引变动的文件
+ *
+ * @author liuzhihang
+ * @date 2021/4/17 10:30
+ */
+public class EndpointIndex extends FileBasedIndexExtension<String, EndpointClassSummary> {
+
+    public static final ID<String, EndpointClassSummary> NAME = ID.create("doc-view.EndpointIndex");
+
+    /**
+     * 有 Mapping 注解方法的类
+     */
+    public static final String SPRING_KEY = "spring";
+
+    /**
+     * 有 Service 注解且实现了接口的类, 只用于找到 Dubbo 接口, 不保存方法
+     */
+    public static final String DUBBO_SERVICE_KEY = "dubbo";
+
+    /**
+     * 名称以 Service 结尾的接口
+     */
+    public static final String SERVICE_INTERFACE_KEY = "service";
+
+    /**
+     * 其他接口, 后面是简单类名, 被 Dubbo 实现类引用时再查找
+     */
+    private static final String INTERFACE_KEY_PREFIX = "interface:";
+
+    private static final String MAPPING_SUFFIX = "Mapping";
+    private static final String REQUEST_MAPPING = "RequestMapping";
+
+    /**
+     * 指定请求方式的注解的优先级
+     */
+    private static final List<String> MAPPING_PRIORITY = Arrays.asList("GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping");
+    private static final String SERVICE_SUFFIX = "Service";
+
+    /**
+     * Dubbo 的 Service 和 DubboService 注解, 索引时不解析引用, 只比较简单类名
+     */
+    private static final Set<String> DUBBO_SERVICE_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "Service", "DubboService"));
+
+    /**
+     * 注释中的标准标签, 不会作为文档名称
+     */
+    private static final Set<String> STANDARD_TAGS = new HashSet<>(Arrays.asList(
+            "param", "return", "throws", "exception", "see", "since", "author", "deprecated", "date", "version"));
+
+    @NotNull
+    @Override
+    public ID<String, EndpointClassSummary> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, EndpointClassSummary, FileContent> getIndexer() {
+        return inputData -> {
+            // 没有相关关键字的文件不需要创建 PSI
+            CharSequence text = inputData.getContentAsText();
+            if (!StringUtil.contains(text, MAPPING_SUFFIX) && !StringUtil.contains(text, SERVICE_SUFFIX)
+                    && !StringUtil.contains(text, "interface")) {
+                return Collections.emptyMap();
+            }
+
+            PsiFile psiFile = inputData.getPsiFile();
+            if (!(psiFile instanceof PsiJavaFile)) {
+                return Collections.emptyMap();
+            }
+
+            PsiClass[] classes = ((PsiJavaFile) psiFile).getClasses();
+            if (classes.length == 0) {
+                return Collections.emptyMap();
+            }
+            return buildClassSummary((PsiJavaFile) psiFile, classes[0]);
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<EndpointClassSummary> getValueExternalizer() {
+        return new EndpointClassSummaryExternalizer();
+    }
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * 其他接口的 key
+     *
+     * @param shortName 接口的简单类名
+     * @return key
+     */
+    @NotNull
+    public static String interfaceKey(@NotNull String shortName) {
+        return INTERFACE_KEY_PREFIX + shortName;
+    }
+
+    /**
+     * 只保存可能是接口类的类: 有 Mapping 注解方法的类, 有 Service 注解且实现了接口的类, 以及有抽象方法的接口
+     *
+     * @return 分类 -> 类摘要, 同时是 Spring 接口类和 Dubbo 实现类时有两个分类
+     */
+    @NotNull
+    private static Map<String, EndpointClassSummary> buildClassSummary(@NotNull PsiJavaFile psiFile, @NotNull PsiClass psiClass) {
+
+        String qualifiedName = psiClass.getQualifiedName();
+        if (qualifiedName == null || psiClass.getName() == null || psiClass.isAnnotationType() || psiClass.isEnum()) {
+            return Collections.emptyMap();
+        }
+
+        if (psiClass.isInterface()) {
+            List<EndpointSummary> endpoints = new ArrayList<>();
+            for (PsiMethod psiMethod : psiClass.getMethods()) {
+                if (psiMethod.getBody() == null && !psiMethod.hasModifierProperty(PsiModifier.STATIC)) {
+                    endpoints.add(buildSummary(psiMethod, "Dubbo", psiClass.getName() + "#" + psiMethod.getName()));
+                }
+            }
+            if (endpoints.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            String key = psiClass.getName().endsWith(SERVICE_SUFFIX) ? SERVICE_INTERFACE_KEY : interfaceKey(psiClass.getName());
+            return Collections.singletonMap(key, new EndpointClassSummary(qualifiedName, true,
+                    Collections.emptyList(), Collections.emptyList(), endpoints));
+        }
+
+        PsiAnnotation[] classAnnotations = getAnnotations(psiClass);
+        if (classAnnotations.length == 0) {
+            return Collections.emptyMap();
+        }
+
+        List<String> annotations = new ArrayList<>();
+        boolean dubboService = false;
+        for (PsiAnnotation annotation : classAnnotations) {
+            annotations.add(getName(psiFile, annotation.getNameReferenceElement()));
+            dubboService |= DUBBO_SERVICE_ANNOTATIONS.contains(getShortName(annotation));
+        }
+
+        List<String> interfaces = new ArrayList<>();
+        PsiReferenceList implementsList = psiClass.getImplementsList();
+        if (dubboService && implementsList != null) {
+            for (PsiJavaCodeReferenceElement reference : implementsList.getReferenceElements()) {
+                interfaces.add(getName(psiFile, reference));
+            }
+        }
+
+        List<EndpointSummary> endpoints = new ArrayList<>();
+        String basePath = getFirstPath(findAnnotation(psiClass, REQUEST_MAPPING));
+        for (PsiMethod psiMethod : psiClass.getMethods()) {
+            PsiAnnotation mapping = findMappingAnnotation(psiMethod);
+            if (mapping != null) {
+                endpoints.add(buildSummary(psiMethod, getHttpMethod(mapping), joinPath(basePath, getFirstPath(mapping))));
+            }
+        }
+
+        EndpointClassSummary summary = new EndpointClassSummary(qualifiedName, false, annotations, interfaces, endpoints);
+        Map<String, EndpointClassSummary> map = new HashMap<>(2);
+        if (!endpoints.isEmpty()) {
+            map.put(SPRING_KEY, summary);
+        }
+        if (!interfaces.isEmpty()) {
+            map.put(DUBBO_SERVICE_KEY, summary);
+        }
+        return map;
+    }
+
+    @NotNull
+    private static EndpointSummary buildSummary(@NotNull PsiMethod psiMethod, String httpMethod, String path) {
+
+        Map<String, String> tags = new HashMap<>();
+        PsiDocComment docComment = psiMethod.getDocComment();
+        if (docComment != null) {
+            for (PsiDocTag tag : docComment.getTags()) {
+                String tagName = tag.getName();
+                if (STANDARD_TAGS.contains(tagName)) {
+                    continue;
+                }
+                tags.put(tagName, CustomPsiCommentUtils.getTagText(tag));
+            }
+        }
+
+        PsiIdentifier nameIdentifier = psiMethod.getNameIdentifier();
+        int offset = nameIdentifier == null ? psiMethod.getTextOffset() : nameIdentifier.getTextOffset();
+
+        return new EndpointSummary(psiMethod.getName(), httpMethod, path, tags, fingerprint(psiMethod), offset);
+    }
+
+    /**
+     * 方法的摘要, 包含方法的全部文本, 以及所在类的注解、注释和文件的包名、导入, 这些变动都会影响生成的文档.
+     * 字段类型等其他文件中的变动不包含在内, 使用方需要自行判断
+     *
+     * @param psiMethod 方法
+     * @return 摘要
+     */
+    public static int fingerprint(@NotNull PsiMethod psiMethod) {
+
+        int hash = psiMethod.getText().hashCode();
+
+        PsiClass psiClass = psiMethod.getContainingClass();
+        if (psiClass != null) {
+            PsiModifierList modifierList = psiClass.getModifierList();
+            PsiDocComment docComment = psiClass.getDocComment();
+            hash = 31 * hash + (modifierList == null ? 0 : modifierList.getText().hashCode());
+            hash = 31 * hash + (docComment == null ? 0 : docComment.getText().hashCode());
+            hash = 31 * hash + StringUtil.notNullize(psiClass.getQualifiedName()).hashCode();
+        }
+
+        PsiFile psiFile = psiMethod.getContainingFile();
+        if (psiFile instanceof PsiJavaFile) {
+            PsiImportList importList = ((PsiJavaFile) psiFile).getImportList();
+            hash = 31 * hash + (importList == null ? 0 : importList.getText().hashCode());
+        }
+        return hash;
+    }
+
+    @NotNull
+    private static PsiAnnotation[] getAnnotations(@NotNull PsiModifierListOwner owner) {
+        PsiModifierList modifierList = owner.getModifierList();
+        return modifierList == null ? PsiAnnotation.EMPTY_ARRAY : modifierList.getAnnotations();
+    }
+
+    private static PsiAnnotation findAnnotation(@NotNull PsiModifierListOwner owner, @NotNull String shortName) {
+        for (PsiAnnotation annotation : getAnnotations(owner)) {
+            if (shortName.equals(getShortName(annotation))) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * GetMapping 等指定请求方式的注解优先, 有多个时和 SpringPsiUtils 相同按 MAPPING_PRIORITY 的顺序, 其次是 RequestMapping
+     */
+    private static PsiAnnotation findMappingAnnotation(@NotNull PsiMethod psiMethod) {
+
+        PsiAnnotation requestMapping = null;
+        PsiAnnotation mapping = null;
+        int mappingPriority = Integer.MAX_VALUE;
+        for (PsiAnnotation annotation : getAnnotations(psiMethod)) {
+            String shortName = getShortName(annotation);
+            if (REQUEST_MAPPING.equals(shortName)) {
+                requestMapping = annotation;
+            } else if (shortName != null && shortName.endsWith(MAPPING_SUFFIX)) {
+                int priority = MAPPING_PRIORITY.indexOf(shortName);
+                priority = priority < 0 ? MAPPING_PRIORITY.size() : priority;
+                if (priority < mappingPriority) {
+                    mapping = annotation;
+                    mappingPriority = priority;
+                }
+            }
+        }
+        return mapping == null ? requestMapping : mapping;
+    }
+
+    @NotNull
+    private static String getHttpMethod(@NotNull PsiAnnotation mapping) {
+
+        String shortName = getShortName(mapping);
+        if (!REQUEST_MAPPING.equals(shortName)) {
+            return StringUtil.trimEnd(StringUtil.notNullize(shortName), MAPPING_SUFFIX).toUpperCase();
+        }
+
+        // RequestMethod.POST 只取枚举名
+        List<String> methods = getAttributeValues(mapping, "method");
+        if (methods.isEmpty()) {
+            return "GET";
+        }
+        String method = methods.get(0);
+        return method.substring(method.lastIndexOf('.') + 1);
+    }
+
+    @NotNull
+    private static String getFirstPath(PsiAnnotation annotation) {
+        if (annotation == null) {
+            return "";
+        }
+        List<String> paths = getAttributeValues(annotation, "value");
+        if (paths.isEmpty()) {
+            paths = getAttributeValues(annotation, "path");
+        }
+        return paths.isEmpty() ? "" : paths.get(0);
+    }
+
+    /**
+     * 注解属性值, 兼容单个值和数组, 常量引用只能取文本
+     */
+    @NotNull
+    private static List<String> getAttributeValues(@NotNull PsiAnnotation annotation, @NotNull String attributeName) {
+
+        List<String> values = new ArrayList<>();
+
+        PsiAnnotationMemberValue memberValue = annotation.findDeclaredAttributeValue(attributeName);
+        PsiAnnotationMemberValue[] memberValues = memberValue instanceof PsiArrayInitializerMemberValue
+                ? ((PsiArrayInitializerMemberValue) memberValue).getInitializers()
+                : memberValue == null ? PsiAnnotationMemberValue.EMPTY_ARRAY : new PsiAnnotationMemberValue[]{memberValue};
+
+        for (PsiAnnotationMemberValue value : memberValues) {
+            if (value instanceof PsiLiteralExpression && ((PsiLiteralExpression) value).getValue() instanceof String) {
+                values.add((String) ((PsiLiteralExpression) value).getValue());
+            } else {
+                values.add(value.getText());
+            }
+        }
+        return values;
+    }
+
+    @NotNull
+    private static String joinPath(@NotNull String basePath, @NotNull String methodPath) {
+
+        if (StringUtil.isEmptyOrSpaces(basePath)) {
+            return methodPath;
+        }
+        if (StringUtil.isEmptyOrSpaces(methodPath)) {
+            return basePath;
+        }
+        if (!methodPath.startsWith("/")) {
+            methodPath = "/" + methodPath;
+        }
+        return (basePath + methodPath).replace("//", "/");
+    }
+
+    private static String getShortName(@NotNull PsiAnnotation annotation) {
+        PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+        return reference == null ? null : reference.getReferenceName();
+    }
+
+    /**
+     * 按 import 转换为全名, 不解析引用
+     */
+    @NotNull
+    private static String getName(@NotNull PsiJavaFile psiFile, PsiJavaCodeReferenceElement reference) {
+
+        if (reference == null || reference.getReferenceName() == null) {
+            return "";
+        }
+
+        String shortName = reference.getReferenceName();
+        if (reference.isQualified()) {
+            // 去掉泛型
+            String text = reference.getText();
+            int index = text.indexOf('<');
+            return (index == -1 ? text : text.substring(0, index)).replaceAll("\\s", "");
+        }
+
+        PsiImportList importList = psiFile.getImportList();
+        if (importList != null) {
+            for (PsiImportStatement statement : importList.getImportStatements()) {
+                String qualifiedName = statement.getQualifiedName();
+                if (!statement.isOnDemand() && qualifiedName != null && qualifiedName.endsWith("." + shortName)) {
+                    return qualifiedName;
+                }
+            }
+        }
+        return shortName;
+    }
+
+    private static class EndpointClassSummaryExternalizer implements DataExternalizer<EndpointClassSummary> {
+
+        @Override
+        public void save(@NotNull DataOutput out, EndpointClassSummary value) throws IOException {
+
+            IOUtil.writeUTF(out, value.getQualifiedName());
+            out.writeBoolean(value.isInterface());
+            writeStringList(out, value.getAnnotations());
+            writeStringList(out, value.getInterfaces());
+
+            DataInputOutputUtil.writeINT(out, value.getEndpoints().size());
+            for (EndpointSummary endpoint : value.getEndpoints()) {
+                IOUtil.writeUTF(out, endpoint.getMethodName());
+                IOUtil.writeUTF(out, endpoint.getHttpMethod());
+                IOUtil.writeUTF(out, endpoint.getPath());
+                DataInputOutputUtil.writeINT(out, endpoint.getTags().size());
+                for (Map.Entry<String, String> entry : endpoint.getTags().entrySet()) {
+                    IOUtil.writeUTF(out, entry.getKey());
+                    IOUtil.writeUTF(out, entry.getValue());
+                }
+                out.writeInt(endpoint.getFingerprint());
+                DataInputOutputUtil.writeINT(out, endpoint.getOffset());
+            }
+        }
+
+        @Override
+        public EndpointClassSummary read(@NotNull DataInput in) throws IOException {
+
+            String qualifiedName = IOUtil.readUTF(in);
+            boolean isInterface = in.readBoolean();
+            List<String> annotations = readStringList(in);
+            List<String> interfaces = readStringList(in);
+
+            int size = DataInputOutputUtil.readINT(in);
+            List<EndpointSummary> endpoints = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String methodName = IOUtil.readUTF(in);
+                String httpMethod = IOUtil.readUTF(in);
+                String path = IOUtil.readUTF(in);
+                int tagSize = DataInputOutputUtil.readINT(in);
+                Map<String, String> tags = new HashMap<>(tagSize);
+                for (int j = 0; j < tagSize; j++) {
+                    tags.put(IOUtil.readUTF(in), IOUtil.readUTF(in));
+                }
+                int fingerprint = in.readInt();
+                int offset = DataInputOutputUtil.readINT(in);
+                endpoints.add(new EndpointSummary(methodName, httpMethod, path, tags, fingerprint, offset));
+            }
+
+            return new EndpointClassSummary(qualifiedName, isInterface, annotations, interfaces, endpoints);
+        }
+
+        private static void writeStringList(@NotNull DataOutput out, @NotNull List<String> list) throws IOException {
+            DataInputOutputUtil.writeINT(out, list.size());
+            for (String value : list) {
+                IOUtil.writeUTF(out, value);
+            }
+        }
+
+        @NotNull
+        private static List<String> readStringList(@NotNull DataInput in) throws IOException {
+            int size = DataInputOutputUtil.readINT(in);
+            List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(IOUtil.readUTF(in));
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.liuzhihang.doc.view.search;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributor;
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributorFactory;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.util.Processor;
+import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.dto.EndpointItem;
+import com.liuzhihang.doc.view.service.DocViewService;
+import com.liuzhihang.doc.view.utils.CustomPsiUtils;
+import com.liuzhihang.doc.view.utils.EndpointMatcher;
+import com.liuzhihang.doc.view.utils.EndpointSearchUtils;
+import com.liuzhihang.doc.view.utils.NotificationUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.event.InputEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Search Everywhere 中按路径、请求方式、文档名称搜索接口
+ * <p>
+ * 只读取接口摘要索引, 结果缓存到下一次 Java 结构变动; 回车跳转到方法, Shift + 回车跳转后预览文档
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 20:10
+ */
+public class EndpointSearchEverywhereContributor implements SearchEverywhereContributor<EndpointItem> {
+
+    private final Project project;
+
+    public EndpointSearchEverywhereContributor(@Nullable Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    @Override
+    public String getSearchProviderId() {
+        return EndpointSearchEverywhereContributor.class.getSimpleName();
+    }
+
+    @NotNull
+    @Override
+    public String getGroupName() {
+        return DocViewBundle.message("search.endpoint.group");
+    }
+
+    @Override
+    public int getSortWeight() {
+        return 800;
+    }
+
+    @Override
+    public boolean showInFindResults() {
+        return false;
+    }
+
+    @Override
+    public boolean isShownInSeparateTab() {
+        return true;
+    }
+
+    @Override
+    public void fetchElements(@NotNull String pattern, @NotNull ProgressIndicator progressIndicator,
+                              @NotNull Processor<? super EndpointItem> consumer) {
+
+        if (project == null || StringUtil.isEmptyOrSpaces(pattern) || DumbService.isDumb(project)) {
+            return;
+        }
+
+        // 写操作时中断并重新执行, 关闭搜索时取消
+        List<EndpointItem> endpoints = ReadAction.nonBlocking(() -> DumbService.isDumb(project)
+                ? Collections.<EndpointItem>emptyList() : EndpointSearchUtils.findEndpoints(project))
+                .expireWith(project)
+                .wrapProgress(progressIndicator)
+                .executeSynchronously();
+
+        EndpointMatcher matcher = new EndpointMatcher(pattern);
+        List<Pair<EndpointItem, Integer>> matchedList = new ArrayList<>();
+        for (EndpointItem endpoint : endpoints) {
+            progressIndicator.checkCanceled();
+            int degree = matcher.matchingDegree(endpoint);
+            if (degree >= 0) {
+                matchedList.add(Pair.create(endpoint, degree));
+            }
+        }
+
+        matchedList.sort(Comparator.<Pair<EndpointItem, Integer>>comparingInt(pair -> -pair.second)
+                .thenComparing(pair -> pair.first.getEndpoint().getPath()));
+        for (Pair<EndpointItem, Integer> pair : matchedList) {
+            if (!consumer.process(pair.first)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean processSelectedItem(@NotNull EndpointItem selected, int modifiers, @NotNull String searchText) {
+
+        VirtualFile virtualFile = selected.getVirtualFile();
+        if (project == null || !virtualFile.isValid()) {
+            return true;
+        }
+
+        OpenFileDescriptor descriptor = new OpenFileDescriptor(project, virtualFile, selected.getEndpoint().getOffset());
+        Editor editor = FileEditorManager.getInstance(project).openTextEditor(descriptor, true);
+
+        if (editor != null && (modifiers & (InputEvent.SHIFT_MASK | InputEvent.SHIFT_DOWN_MASK)) != 0) {
+            // 搜索弹窗关闭后再预览, 光标已经在方法上
+            ApplicationManager.getApplication().invokeLater(() -> preview(editor), project.getDisposed());
+        }
+        return true;
+    }
+
+    private void preview(@NotNull Editor editor) {
+
+        PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
+        if (psiFile == null) {
+            return;
+        }
+
+        PsiClass targetClass = CustomPsiUtils.getTargetClass(editor, psiFile);
+        DocViewService docViewService = targetClass == null ? null : DocViewService.getInstance(project, psiFile, editor, targetClass);
+        if (docViewService == null) {
+            NotificationUtils.errorNotify(DocViewBundle.message("notify.error.not.support"), project);
+            return;
+        }
+        docViewService.doPreview(project, psiFile, editor, targetClass);
+    }
+
+    @NotNull
+    @Override
+    public ListCellRenderer<? super EndpointItem> getElementsRenderer() {
+        return new ColoredListCellRenderer<EndpointItem>() {
+            @Override
+            protected void customizeCellRenderer(@NotNull JList<? extends EndpointItem> list, EndpointItem value,
+                                                 int index, boolean selected, boolean hasFocus) {
+                setIcon(AllIcons.Nodes.Method);
+                append(value.getEndpoint().getHttpMethod() + " ", SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+                append(StringUtil.defaultIfEmpty(value.getEndpoint().getPath(), "/"));
+                append("  " + value.getDocName(), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+                append("  " + value.getClassName() + "#" + value.getEndpoint().getMethodName(),
+                        SimpleTextAttributes.GRAYED_SMALL_ATTRIBUTES);
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public Object getDataForItem(@NotNull EndpointItem element, @NotNull String dataId) {
+        return null;
+    }
+
+    public static class Factory implements SearchEverywhereContributorFactory<EndpointItem> {
+
+        @NotNull
+        @Override
+        public SearchEverywhereContributor<EndpointItem> createContributor(@NotNull AnActionEvent initEvent) {
+            return new EndpointSearchEverywhereContributor(initEvent.getProject());
+        }
+    }
+}
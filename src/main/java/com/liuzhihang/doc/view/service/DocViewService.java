@@ -1,22 +1,28 @@
 package com.liuzhihang.doc.view.service;
 
 import com.intellij.codeInsight.AnnotationUtil;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiMethod;
 import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.config.TagsSettings;
 import com.liuzhihang.doc.view.dto.DocView;
 import com.liuzhihang.doc.view.service.impl.DubboDocViewServiceImpl;
 import com.liuzhihang.doc.view.service.impl.SpringDocViewServiceImpl;
+import com.liuzhihang.doc.view.utils.CustomPsiCommentUtils;
 import com.liuzhihang.doc.view.utils.CustomPsiUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * @author liuzhihang
@@ -78,6 +84,70 @@ public interface DocViewService {
         return buildClassDoc(project, targetClass);
     }
 
+    /**
+     * 生成多个方法的文档, 结果按方法顺序合并
+     * <p>
+     * 开启并行时, 每个方法在独立的 read action 中生成, 线程数不超过 CPU 核数, 会响应 ProgressManager 的取消
+     *
+     * @param project    项目参数
+     * @param psiClass   当前类
+     * @param methodList 需要生成文档的方法
+     * @return 文档名称 -> 文档
+     */
+    @NotNull
+    default Map<String, DocView> buildMethodDoc(@NotNull Project project, @NotNull PsiClass psiClass,
+                                                @NotNull List<PsiMethod> methodList) {
+
+        Map<String, DocView> docMap = new LinkedHashMap<>(32);
+
+        if (methodList.size() <= 1 || !Boolean.TRUE.equals(Settings.getInstance(project).getParallelBuild())) {
+            for (PsiMethod method : methodList) {
+                ProgressManager.checkCanceled();
+                DocView docView = buildClassMethodDoc(project, psiClass, method);
+                docMap.put(docView.getName(), docView);
+            }
+            return docMap;
+        }
+
+        DocView[] docViews = new DocView[methodList.size()];
+        List<Integer> indexList = new ArrayList<>(methodList.size());
+        for (int i = 0; i < methodList.size(); i++) {
+            indexList.add(i);
+        }
+
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indexList,
+                ProgressManager.getInstance().getProgressIndicator(), index -> {
+                    PsiMethod method = methodList.get(index);
+                    // 调用方持有 read action 时, JobLauncher 会在 read action 中执行
+                    docViews[index] = ApplicationManager.getApplication().isReadAccessAllowed()
+                            ? buildClassMethodDoc(project, psiClass, method)
+                            : ReadAction.compute(() -> buildClassMethodDoc(project, psiClass, method));
+                    return true;
+                });
+
+        for (DocView docView : docViews) {
+            docMap.put(docView.getName(), docView);
+        }
+        return docMap;
+    }
+
+    /**
+     * 文档名称, 优先使用注释中的 name 标签, 没有时使用方法名
+     * <p>
+     * 只读取方法注释, 可用于在生成文档前展示目录
+     *
+     * @param project   项目参数
+     * @param psiMethod 方法
+     * @return 文档名称
+     */
+    @NotNull
+    default String getDocName(@NotNull Project project, @NotNull PsiMethod psiMethod) {
+
+        String name = CustomPsiCommentUtils.getComment(psiMethod.getDocComment(), TagsSettings.getInstance(project).getName());
+
+        return StringUtils.isBlank(name) ? psiMethod.getName() : name;
+    }
+
     void doPreview(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull Editor editor, @NotNull PsiClass targetClass);
 
     Map<String, DocView> buildClassDoc(Project settings, @NotNull PsiClass psiClass);
@@ -0,0 +1,44 @@
+package com.liuzhihang.doc.view.service;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.pointers.VirtualFilePointer;
+import com.liuzhihang.doc.view.service.impl.ToolWindowFileServiceImpl;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * doc-view tree 中文件的指针, 一个项目一个
+ * <p>
+ * 文件移动、重命名后指针仍然有效, 文件删除后指针返回 null
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 15:20
+ */
+public interface ToolWindowFileService {
+
+    static ToolWindowFileService getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, ToolWindowFileServiceImpl.class);
+    }
+
+    /**
+     * 获取文件指针, 同一个文件只创建一次, 可以在任意线程调用
+     *
+     * @param virtualFile 文件
+     * @return 文件指针
+     */
+    @NotNull
+    VirtualFilePointer getPointer(@NotNull VirtualFile virtualFile);
+
+    /**
+     * 节点删除后移除文件指针
+     *
+     * @param pointer 文件指针
+     */
+    void remove(@NotNull VirtualFilePointer pointer);
+
+    /**
+     * 重新加载树时释放全部文件指针
+     */
+    void clear();
+}
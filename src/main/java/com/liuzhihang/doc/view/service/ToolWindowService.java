@@ -2,10 +2,12 @@ package com.liuzhihang.doc.view.service;
 
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.liuzhihang.doc.view.service.impl.ToolWindowServiceImpl;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.util.Collection;
 
 /**
  * DocViewDataService
@@ -21,9 +23,18 @@ public interface ToolWindowService {
     }
 
     /**
-     * 加载 doc-view tree
+     * 加载 doc-view tree, 在 UI 线程调用, 立即返回, 在后台加载完成后更新树
      *
      * @param project 当前项目
      */
     void loadDocViewTree(Project project, JTree tree);
+
+    /**
+     * 文件变动后更新 doc-view tree 中对应的节点, 在 UI 线程调用, 只读取变动文件的索引
+     *
+     * @param project 当前项目
+     * @param files   变动的文件, 包含已经删除的文件
+     * @return false 正在加载, 加载可能读取的是变动前的索引, 需要加载完成后再更新
+     */
+    boolean updateDocViewTree(Project project, JTree tree, Collection<VirtualFile> files);
 }
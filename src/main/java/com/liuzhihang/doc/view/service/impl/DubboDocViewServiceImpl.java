@@ -2,22 +2,21 @@ package com.liuzhihang.doc.view.service.impl;
 
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiType;
 import com.liuzhihang.doc.view.DocViewBundle;
 import com.liuzhihang.doc.view.config.Settings;
-import com.liuzhihang.doc.view.config.TagsSettings;
 import com.liuzhihang.doc.view.dto.Body;
 import com.liuzhihang.doc.view.dto.DocView;
 import com.liuzhihang.doc.view.service.DocViewService;
 import com.liuzhihang.doc.view.ui.PreviewForm;
 import com.liuzhihang.doc.view.utils.*;
-import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -33,7 +32,7 @@ public class DubboDocViewServiceImpl implements DocViewService {
         // 当前方法
         PsiMethod targetMethod = CustomPsiUtils.getTargetMethod(editor, psiFile);
 
-        Map<String, DocView> docMap = new HashMap<>();
+        List<PsiMethod> methodList = new ArrayList<>();
 
         if (targetMethod != null) {
 
@@ -42,38 +41,37 @@ public class DubboDocViewServiceImpl implements DocViewService {
                 return;
             }
 
-            DocView docView = buildClassMethodDoc(project, targetClass, targetMethod);
-            docMap.put(docView.getName(), docView);
+            methodList.add(targetMethod);
 
         } else {
-            // 生成文档列表
-            docMap = buildClassDoc(project, targetClass);
-            if (docMap.size() == 0) {
+            // 需要生成文档的方法
+            for (PsiMethod method : targetClass.getMethods()) {
+                if (DubboPsiUtils.isDubboMethod(project, method)) {
+                    methodList.add(method);
+                }
+            }
+            if (methodList.isEmpty()) {
                 NotificationUtils.errorNotify(DocViewBundle.message("notify.dubbo.error.no.method"), project);
                 return;
             }
         }
 
-        PreviewForm.getInstance(project, psiFile, editor, targetClass, docMap).popup();
-
+        // 先打开面板, 文档在后台生成
+        PreviewForm.getInstance(project, psiFile, editor, targetClass, methodList, this).popup();
     }
 
     @Override
     public Map<String, DocView> buildClassDoc(@NotNull Project project, @NotNull PsiClass psiClass) {
 
-        Map<String, DocView> docMap = new HashMap<>(32);
+        List<PsiMethod> methodList = new ArrayList<>();
 
         for (PsiMethod method : psiClass.getMethods()) {
-
-            if (!DubboPsiUtils.isDubboMethod(project, method)) {
-                continue;
+            if (DubboPsiUtils.isDubboMethod(project, method)) {
+                methodList.add(method);
             }
-
-            DocView docView = buildClassMethodDoc(project, psiClass, method);
-            docMap.put(docView.getName(), docView);
         }
 
-        return docMap;
+        return buildMethodDoc(project, psiClass, methodList);
 
     }
 
@@ -82,7 +80,6 @@ public class DubboDocViewServiceImpl implements DocViewService {
     public DocView buildClassMethodDoc(@NotNull Project project, @NotNull PsiClass psiClass, @NotNull PsiMethod psiMethod) {
 
         Settings settings = Settings.getInstance(project);
-        TagsSettings tagsSettings = TagsSettings.getInstance(project);
 
         // 请求路径
         String path = psiClass.getName() + "#" + psiMethod.getName();
@@ -93,13 +90,13 @@ public class DubboDocViewServiceImpl implements DocViewService {
         // 文档注释
         String desc = CustomPsiCommentUtils.getComment(psiMethod.getDocComment());
 
-        String name = CustomPsiCommentUtils.getComment(psiMethod.getDocComment(), tagsSettings.getName());
 
         DocView docView = new DocView();
         docView.setPsiMethod(psiMethod);
         docView.setFullClassName(psiClass.getQualifiedName());
         docView.setClassName(psiClass.getName());
-        docView.setName(StringUtils.isBlank(name) ? psiMethod.getName() : name);
+        docView.setMethodName(psiMethod.getName());
+        docView.setName(getDocName(project, psiMethod));
         docView.setDesc(desc);
         docView.setPath(path);
         docView.setMethod(method);
@@ -111,23 +108,20 @@ public class DubboDocViewServiceImpl implements DocViewService {
         if (psiMethod.hasParameters()) {
 
             // 获取
-            List<Body> reqBody = DubboPsiUtils.buildBody(settings, psiMethod);
-            docView.setReqBodyList(reqBody);
+            Pair<List<Body>, String> reqBody = DubboPsiUtils.buildBodyAndJson(settings, psiMethod);
+            docView.setReqBodyList(reqBody.first);
             docView.setReqExampleType("json");
-
-            String bodyJson = DubboPsiUtils.getReqBodyJson(settings, psiMethod);
-            docView.setReqExample(bodyJson);
+            docView.setReqExample(reqBody.second);
 
         }
 
         PsiType returnType = psiMethod.getReturnType();
         // 返回代码相同
         if (returnType != null && returnType.isValid() && !returnType.equalsToText("void")) {
-            List<Body> respParamList = ParamPsiUtils.buildRespBody(settings, returnType);
-            docView.setRespBodyList(respParamList);
-
-            String bodyJson = ParamPsiUtils.getRespBodyJson(settings, returnType);
-            docView.setRespExample(bodyJson);
+            Pair<List<Body>, String> respBody = ParamPsiUtils.buildRespBodyAndJson(settings, returnType);
+            docView.setRespBodyList(respBody.first);
+            docView.setRespBodyClassName(ParamPsiUtils.getBodyClassName(returnType));
+            docView.setRespExample(respBody.second);
         }
         return docView;
 
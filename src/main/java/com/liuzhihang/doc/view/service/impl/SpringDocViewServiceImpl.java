@@ -2,10 +2,10 @@ package com.liuzhihang.doc.view.service.impl;
 
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
 import com.liuzhihang.doc.view.DocViewBundle;
 import com.liuzhihang.doc.view.config.Settings;
-import com.liuzhihang.doc.view.config.TagsSettings;
 import com.liuzhihang.doc.view.dto.Body;
 import com.liuzhihang.doc.view.dto.DocView;
 import com.liuzhihang.doc.view.dto.Header;
@@ -13,11 +13,9 @@ import com.liuzhihang.doc.view.dto.Param;
 import com.liuzhihang.doc.view.service.DocViewService;
 import com.liuzhihang.doc.view.ui.PreviewForm;
 import com.liuzhihang.doc.view.utils.*;
-import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -34,7 +32,7 @@ public class SpringDocViewServiceImpl implements DocViewService {
         // 当前方法
         PsiMethod targetMethod = CustomPsiUtils.getTargetMethod(editor, psiFile);
 
-        Map<String, DocView> docMap = new HashMap<>();
+        List<PsiMethod> methodList = new ArrayList<>();
 
         if (targetMethod != null) {
 
@@ -43,37 +41,38 @@ public class SpringDocViewServiceImpl implements DocViewService {
                 return;
             }
 
-            DocView docView = buildClassMethodDoc(project, targetClass, targetMethod);
-            docMap.put(docView.getName(), docView);
+            methodList.add(targetMethod);
 
         } else {
-            // 生成文档列表
-            docMap = buildClassDoc(project, targetClass);
-            if (docMap.size() == 0) {
+            // 需要生成文档的方法
+            for (PsiMethod method : targetClass.getMethods()) {
+                if (SpringPsiUtils.isSpringMethod(project, method)) {
+                    methodList.add(method);
+                }
+            }
+            if (methodList.isEmpty()) {
                 NotificationUtils.errorNotify(DocViewBundle.message("notify.spring.error.no.method"), project);
                 return;
             }
         }
-        PreviewForm.getInstance(project, psiFile, editor, targetClass, docMap).popup();
+
+        // 先打开面板, 文档在后台生成
+        PreviewForm.getInstance(project, psiFile, editor, targetClass, methodList, this).popup();
     }
 
     @NotNull
     @Override
     public Map<String, DocView> buildClassDoc(@NotNull Project project, @NotNull PsiClass psiClass) {
 
-        Map<String, DocView> docMap = new HashMap<>(32);
+        List<PsiMethod> methodList = new ArrayList<>();
 
         for (PsiMethod method : psiClass.getMethods()) {
-
-            if (!SpringPsiUtils.isSpringMethod(project, method)) {
-                continue;
+            if (SpringPsiUtils.isSpringMethod(project, method)) {
+                methodList.add(method);
             }
-
-            DocView docView = buildClassMethodDoc(project, psiClass, method);
-            docMap.put(docView.getName(), docView);
         }
 
-        return docMap;
+        return buildMethodDoc(project, psiClass, methodList);
     }
 
     @NotNull
@@ -81,7 +80,6 @@ public class SpringDocViewServiceImpl implements DocViewService {
     public DocView buildClassMethodDoc(@NotNull Project project, PsiClass psiClass, @NotNull PsiMethod psiMethod) {
 
         Settings settings = Settings.getInstance(project);
-        TagsSettings tagsSettings = TagsSettings.getInstance(project);
 
 
         // 请求路径
@@ -95,14 +93,12 @@ public class SpringDocViewServiceImpl implements DocViewService {
         String desc = CustomPsiCommentUtils.getComment(psiMethod.getDocComment());
 
 
-        String name = CustomPsiCommentUtils.getComment(psiMethod.getDocComment(), tagsSettings.getName());
-
-
         DocView docView = new DocView();
         docView.setPsiMethod(psiMethod);
         docView.setFullClassName(psiClass.getQualifiedName());
         docView.setClassName(psiClass.getName());
-        docView.setName(StringUtils.isBlank(name) ? psiMethod.getName() : name);
+        docView.setMethodName(psiMethod.getName());
+        docView.setName(getDocName(project, psiMethod));
         docView.setDesc(desc);
         docView.setPath(path);
         docView.setMethod(method);
@@ -122,13 +118,15 @@ public class SpringDocViewServiceImpl implements DocViewService {
                 Header jsonHeader = SpringHeaderUtils.buildJsonHeader();
                 headerList.add(jsonHeader);
 
-                List<Body> reqBody = SpringPsiUtils.buildBody(settings, requestBodyParam);
-                docView.setReqBodyList(reqBody);
-
-                String bodyJson = SpringPsiUtils.getReqBodyJson(settings, requestBodyParam);
-                docView.setReqExample(bodyJson);
+                Pair<List<Body>, String> reqBody = SpringPsiUtils.buildBodyAndJson(settings, requestBodyParam);
+                docView.setReqBodyList(reqBody.first);
+                docView.setReqBodyClassName(ParamPsiUtils.getBodyClassName(requestBodyParam.getType()));
+                docView.setReqExample(reqBody.second);
                 docView.setReqExampleType("json");
 
+                // 路径参数和 url 中的参数
+                docView.setReqParamList(SpringPsiUtils.buildFormParam(settings, psiMethod));
+
             } else {
                 Header formHeader = SpringHeaderUtils.buildFormHeader();
                 headerList.add(formHeader);
@@ -154,12 +152,10 @@ public class SpringDocViewServiceImpl implements DocViewService {
 
         PsiType returnType = psiMethod.getReturnType();
         if (returnType != null && returnType.isValid() && !returnType.equalsToText("void")) {
-            List<Body> respParamList = ParamPsiUtils.buildRespBody(settings, returnType);
-            docView.setRespBodyList(respParamList);
-
-            String bodyJson = ParamPsiUtils.getRespBodyJson(settings, returnType);
-
-            docView.setRespExample(bodyJson);
+            Pair<List<Body>, String> respBody = ParamPsiUtils.buildRespBodyAndJson(settings, returnType);
+            docView.setRespBodyList(respBody.first);
+            docView.setRespBodyClassName(ParamPsiUtils.getBodyClassName(returnType));
+            docView.setRespExample(respBody.second);
         }
         return docView;
     }
@@ -0,0 +1,67 @@
+package com.liuzhihang.doc.view.service.impl;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.pointers.VirtualFilePointer;
+import com.intellij.openapi.vfs.pointers.VirtualFilePointerManager;
+import com.liuzhihang.doc.view.service.ToolWindowFileService;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件 url -> 文件指针, 每个指针有单独的父级, 节点删除、重新加载或者项目关闭时释放
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 15:20
+ */
+public class ToolWindowFileServiceImpl implements ToolWindowFileService, Disposable {
+
+    private final Map<String, VirtualFilePointer> pointerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 指针 -> 指针的父级, 释放父级时指针一并释放
+     */
+    private final Map<VirtualFilePointer, Disposable> disposableMap = new ConcurrentHashMap<>();
+
+    @NotNull
+    @Override
+    public VirtualFilePointer getPointer(@NotNull VirtualFile virtualFile) {
+        return pointerMap.computeIfAbsent(virtualFile.getUrl(), url -> {
+            Disposable disposable = Disposer.newDisposable("DocViewFilePointer");
+            Disposer.register(this, disposable);
+            VirtualFilePointer pointer = VirtualFilePointerManager.getInstance().create(virtualFile, disposable, null);
+            disposableMap.put(pointer, disposable);
+            return pointer;
+        });
+    }
+
+    @Override
+    public void remove(@NotNull VirtualFilePointer pointer) {
+        pointerMap.values().remove(pointer);
+        Disposable disposable = disposableMap.remove(pointer);
+        if (disposable != null) {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        pointerMap.clear();
+        for (VirtualFilePointer pointer : disposableMap.keySet()) {
+            Disposable disposable = disposableMap.remove(pointer);
+            if (disposable != null) {
+                Disposer.dispose(disposable);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        // 指针的父级注册在当前 service 下, 由 Disposer 释放
+        pointerMap.clear();
+        disposableMap.clear();
+    }
+}
@@ -1,17 +1,31 @@
 package com.liuzhihang.doc.view.service.impl;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.treeStructure.Tree;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.ui.StatusText;
+import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.dto.EndpointClassSummary;
+import com.liuzhihang.doc.view.service.ToolWindowFileService;
 import com.liuzhihang.doc.view.service.ToolWindowService;
+import com.liuzhihang.doc.view.tool.DocViewFileNode;
+import com.liuzhihang.doc.view.utils.EndpointSearchUtils;
+import org.jetbrains.concurrency.CancellablePromise;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
-import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * DocViewDataService
@@ -23,120 +37,281 @@ import java.util.*;
 public class ToolWindowServiceImpl implements ToolWindowService {
 
     /**
-     * 文件缓存，在刷新时清除
+     * 树上正在进行的加载, 重新加载时取消
      */
-    public static Map<String, VirtualFile> virtualFileCache = new HashMap<>();
+    private static final String LOADING_KEY = "DocViewTreeLoading";
+
+    /**
+     * 全部模块已经添加到树中的加载, 多模块项目逐个模块添加, 读取完成后树中还没有全部模块
+     */
+    private static final String LOADED_KEY = "DocViewTreeLoaded";
+
     /**
-     * 使用有序 map 保存临时项目文件树结构
+     * 上次加载时的 Dubbo 接口名称, 增量更新时使用
      */
-    private final Map<String, List<String>> docViewTreeTemp = new LinkedHashMap<>();
+    private static final String DUBBO_INTERFACES_KEY = "DocViewDubboInterfaces";
 
     /**
      * 加载 doc-view tree
+     * <p>
+     * 在后台的 read action 中从接口摘要索引读取接口类, 按 模块 -> 包 -> 文件 生成树.
+     * 索引未完成时等待, 有写操作时中断并重新执行, 不阻塞 UI; 完成后逐个模块添加到树中
      *
      * @param project 当前项目
      */
     @Override
     public void loadDocViewTree(Project project, JTree tree) {
+
+        // 取消上一次未完成的加载
+        Object loading = tree.getClientProperty(LOADING_KEY);
+        if (loading instanceof CancellablePromise) {
+            ((CancellablePromise<?>) loading).cancel();
+        }
+
         // doc-view 树模块
         DefaultTreeModel treeMode = (DefaultTreeModel) tree.getModel();
         DefaultMutableTreeNode modelRoot = (DefaultMutableTreeNode) treeMode.getRoot();
         // 清空当前树模块数据，重新加载
         modelRoot.removeAllChildren();
-        docViewTreeTemp.clear();
-        virtualFileCache.clear();
+        ToolWindowFileService.getInstance(project).clear();
+        treeMode.reload();
+        setEmptyText(tree, DocViewBundle.message("tool.window.tree.loading"));
+
+        Set<String> dubboInterfaces = ConcurrentHashMap.newKeySet();
+        tree.putClientProperty(DUBBO_INTERFACES_KEY, dubboInterfaces);
+        tree.putClientProperty(LOADED_KEY, null);
+
+        CancellablePromise<Map<Module, Map<String, Set<VirtualFile>>>> promise =
+                ReadAction.nonBlocking(() -> buildModuleMap(project, dubboInterfaces))
+                        .inSmartMode(project)
+                        .expireWith(project)
+                        .finishOnUiThread(ModalityState.any(), moduleMap -> loadModuleTree(project, tree, moduleMap))
+                        .submit(AppExecutorUtil.getAppExecutorService());
+
+        tree.putClientProperty(LOADING_KEY, promise);
+    }
+
+    /**
+     * 模块 -> 包名 -> 文件, 单模块项目只有一个模块
+     */
+    private Map<Module, Map<String, Set<VirtualFile>>> buildModuleMap(Project project, Set<String> dubboInterfaces) {
+
+        Map<Module, Map<String, Set<VirtualFile>>> moduleMap = new HashMap<>();
+
+        // 从索引中读取, 不解析 PSI
+        ProjectFileIndex fileIndex = ProjectFileIndex.SERVICE.getInstance(project);
+        EndpointSearchUtils.findEndpointClasses(project, dubboInterfaces).forEach((virtualFile, summary) -> {
+            ProgressManager.checkCanceled();
+            moduleMap.computeIfAbsent(fileIndex.getModuleForFile(virtualFile), k -> new TreeMap<>())
+                    .computeIfAbsent(StringUtil.getPackageName(summary.getQualifiedName()),
+                            k -> new TreeSet<>(Comparator.comparing(VirtualFile::getName)))
+                    .add(virtualFile);
+        });
+        return moduleMap;
+    }
+
+    /**
+     * 逐个模块添加到树中, 每个模块单独排队, 大项目也不会长时间占用 UI 线程
+     */
+    private void loadModuleTree(Project project, JTree tree, Map<Module, Map<String, Set<VirtualFile>>> moduleMap) {
+
+        DefaultTreeModel treeMode = (DefaultTreeModel) tree.getModel();
+        DefaultMutableTreeNode modelRoot = (DefaultMutableTreeNode) treeMode.getRoot();
 
         // 根节点配置为项目名称
         DefaultMutableTreeNode treeRoot = new DefaultMutableTreeNode(project.getName());
         modelRoot.add(treeRoot);
+        treeMode.nodeStructureChanged(modelRoot);
+        setEmptyText(tree, StatusText.getDefaultEmptyText());
+
+        Object loading = tree.getClientProperty(LOADING_KEY);
 
-        // 当前项目文件索引
-        ProjectFileIndex fileIndex = ProjectFileIndex.SERVICE.getInstance(project);
         // 获取当前项目模块数
         Module[] modules = ModuleManager.getInstance(project).getModules();
         // 多模块项目
         if (modules.length > 1) {
-            for (Module module : modules) {
-                DefaultMutableTreeNode moduleRoot = new DefaultMutableTreeNode(module.getName());
-                treeRoot.add(moduleRoot);
-
-                fileIndex.iterateContentUnderDirectory(
-                        Objects.requireNonNull(module.getModuleFile()).getParent(),
-                        fileOrDir -> fileFilter(fileOrDir, fileOrDir.isDirectory()));
-                loadTempTree(moduleRoot);
-                // 释放内存
-                docViewTreeTemp.clear();
+            for (int i = 0; i < modules.length; i++) {
+                Module module = modules[i];
+                boolean last = i == modules.length - 1;
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    // 已经重新加载
+                    if (tree.getClientProperty(LOADING_KEY) != loading) {
+                        return;
+                    }
+                    DefaultMutableTreeNode moduleRoot = new DefaultMutableTreeNode(module.getName());
+                    treeRoot.add(moduleRoot);
+                    loadPackageTree(project, moduleRoot, moduleMap.getOrDefault(module, Collections.emptyMap()));
+                    treeMode.nodeStructureChanged(treeRoot);
+                    // invokeLater 按顺序执行, 最后一个模块添加后才可以增量更新
+                    if (last) {
+                        tree.putClientProperty(LOADED_KEY, loading);
+                    }
+                }, ModalityState.any(), project.getDisposed());
             }
         } else {
-            // 遍历项目目录
-            fileIndex.iterateContent(fileOrDir -> fileFilter(fileOrDir, fileOrDir.isDirectory()));
-            loadTempTree(treeRoot);
-            // 释放内存
-            docViewTreeTemp.clear();
+            moduleMap.values().forEach(packageMap -> loadPackageTree(project, treeRoot, packageMap));
+            treeMode.nodeStructureChanged(treeRoot);
+            tree.putClientProperty(LOADED_KEY, loading);
         }
-
-        // 更新树模块UI，重新加载
-        tree.updateUI();
-        treeMode.reload();
     }
 
-    private void loadTempTree(DefaultMutableTreeNode moduleRoot) {
-        for (String key : docViewTreeTemp.keySet()) {
-            DefaultMutableTreeNode directory = new DefaultMutableTreeNode(key);
-            docViewTreeTemp.get(key).forEach(value -> directory.add(new DefaultMutableTreeNode(value)));
+    private void loadPackageTree(Project project, DefaultMutableTreeNode moduleRoot, Map<String, Set<VirtualFile>> packageMap) {
+        ToolWindowFileService fileService = ToolWindowFileService.getInstance(project);
+        for (Map.Entry<String, Set<VirtualFile>> entry : packageMap.entrySet()) {
+            DefaultMutableTreeNode directory = new DefaultMutableTreeNode(entry.getKey());
+            for (VirtualFile virtualFile : entry.getValue()) {
+                directory.add(new DocViewFileNode(virtualFile.getName(), fileService.getPointer(virtualFile)));
+            }
             moduleRoot.add(directory);
         }
     }
 
     /**
-     * 过滤文件
+     * 更新变动文件对应的节点
+     * <p>
+     * 只读取变动文件的索引, 位置没有变化的节点不处理; 新增 Dubbo 接口时其他文件也可能变化, 重新加载整个树
      *
-     * @param fileOrDir     当前遍历节点
-     * @param directoryFlag 是否为目录
-     * @return 是否继续遍历
+     * @param project 当前项目
+     * @param files   变动的文件, 包含已经删除的文件
+     * @return false 正在加载, 没有处理
      */
-    private boolean fileFilter(VirtualFile fileOrDir, boolean directoryFlag) {
-        // 如果是文件
-        if (!directoryFlag) {
-            if (("java").equals(fileOrDir.getExtension())) {
-                // 根据文件名过滤可疑的接口文件 ，暂时只保留包含 service 或 controller 文件
-                String fileName = fileOrDir.getName().toLowerCase();
-                // 服务类
-                boolean service = fileName.contains("service");
-                // 实现类
-                boolean imp = fileName.contains("imp");
-                boolean impl = fileName.contains("impl");
-                // 控制类
-                boolean action = fileName.contains("action");
-                boolean controller = fileName.contains("controller");
-                // TODO: 文件过滤规则可配置
-                if ((service && !imp && !impl) || action || controller) {
-                    // 使用 ‘/src/main/java/’ 后地址作为目录
-                    String path = fileOrDir.getParent().getPath();
-                    // File.separator 在 windows 环境取值有误，暂增加备用替换逻辑
-                    path = path.replace(File.separator, ".")
-                            .replace("/", ".")
-                            .replace("\\", ".");
-                    // TODO: 项目根目录可配置
-                    String begin = "src.main.java.";
-                    int beginIndex = path.indexOf(begin);
-                    if (beginIndex == -1) {
-                        begin = "src.";
-                        beginIndex = path.indexOf(begin);
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean updateDocViewTree(Project project, JTree tree, Collection<VirtualFile> files) {
+
+        Object loading = tree.getClientProperty(LOADING_KEY);
+        Object dubboInterfaces = tree.getClientProperty(DUBBO_INTERFACES_KEY);
+        if (!(loading instanceof CancellablePromise) || !(dubboInterfaces instanceof Set)) {
+            // 还没有加载过, 加载时会读取全部
+            return true;
+        }
+        if (!((CancellablePromise<?>) loading).isDone() || tree.getClientProperty(LOADED_KEY) != loading) {
+            // 正在读取或者还有模块没有添加到树中
+            return false;
+        }
+
+        Set<String> knownInterfaces = (Set<String>) dubboInterfaces;
+        int knownCount = knownInterfaces.size();
+
+        ReadAction.nonBlocking(() -> EndpointSearchUtils.findEndpointClasses(project, files, knownInterfaces))
+                .inSmartMode(project)
+                .expireWith(project)
+                .finishOnUiThread(ModalityState.any(), fileMap -> {
+                    // 已经重新加载
+                    if (tree.getClientProperty(LOADING_KEY) != loading) {
+                        return;
                     }
-                    path = path.substring(beginIndex + begin.length());
+                    if (knownInterfaces.size() > knownCount || !updateFileTree(project, tree, files, fileMap)) {
+                        loadDocViewTree(project, tree);
+                    }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+        return true;
+    }
+
+    /**
+     * 删除文件原来的节点, 再按新的包名添加, 包名和文件名都没有变化时不处理
+     *
+     * @return 找不到模块节点时返回 false, 需要重新加载
+     */
+    private boolean updateFileTree(Project project, JTree tree, Collection<VirtualFile> files,
+                                   Map<VirtualFile, EndpointClassSummary> fileMap) {
+
+        DefaultTreeModel treeMode = (DefaultTreeModel) tree.getModel();
+        DefaultMutableTreeNode modelRoot = (DefaultMutableTreeNode) treeMode.getRoot();
+        if (modelRoot.getChildCount() == 0) {
+            return true;
+        }
+        DefaultMutableTreeNode treeRoot = (DefaultMutableTreeNode) modelRoot.getFirstChild();
+        boolean multiModule = ModuleManager.getInstance(project).getModules().length > 1;
+        ProjectFileIndex fileIndex = ProjectFileIndex.SERVICE.getInstance(project);
+        ToolWindowFileService fileService = ToolWindowFileService.getInstance(project);
 
-                    List<String> fileNames = docViewTreeTemp.get(path);
-                    fileNames = Optional.ofNullable(fileNames).orElse(new ArrayList<>());
-                    fileNames.add(fileOrDir.getName());
-                    docViewTreeTemp.put(path, fileNames);
-                    virtualFileCache.put(path + fileOrDir.getName(), fileOrDir);
+        for (VirtualFile virtualFile : files) {
+            EndpointClassSummary summary = fileMap.get(virtualFile);
+            DocViewFileNode fileNode = findFileNode(treeRoot, virtualFile);
+            String packageName = summary == null ? null : StringUtil.getPackageName(summary.getQualifiedName());
+            if (fileNode != null && summary != null && virtualFile.getName().equals(fileNode.getUserObject())
+                    && packageName.equals(((DefaultMutableTreeNode) fileNode.getParent()).getUserObject())) {
+                continue;
+            }
+
+            if (fileNode != null) {
+                removeFileNode(treeMode, fileNode);
+                fileService.remove(fileNode.getPointer());
+            }
+
+            if (summary != null) {
+                DefaultMutableTreeNode moduleRoot = treeRoot;
+                if (multiModule) {
+                    Module module = fileIndex.getModuleForFile(virtualFile);
+                    moduleRoot = module == null ? null : findChild(treeRoot, module.getName());
+                    if (moduleRoot == null) {
+                        return false;
+                    }
                 }
+                DefaultMutableTreeNode directory = findChild(moduleRoot, packageName);
+                if (directory == null) {
+                    directory = new DefaultMutableTreeNode(packageName);
+                    treeMode.insertNodeInto(directory, moduleRoot, insertIndex(moduleRoot, packageName));
+                }
+                treeMode.insertNodeInto(new DocViewFileNode(virtualFile.getName(), fileService.getPointer(virtualFile)),
+                        directory, insertIndex(directory, virtualFile.getName()));
             }
-        } else {
-            // 遍历到测试目录结束
-            return !"test".equals(fileOrDir.getName()) || !fileOrDir.getName().contains("imp");
         }
         return true;
     }
+
+    /**
+     * 查找文件对应的节点, 文件移动或删除后仍然可以找到原来的节点
+     */
+    private DocViewFileNode findFileNode(DefaultMutableTreeNode treeRoot, VirtualFile virtualFile) {
+        Enumeration<?> nodes = treeRoot.depthFirstEnumeration();
+        while (nodes.hasMoreElements()) {
+            Object node = nodes.nextElement();
+            if (node instanceof DocViewFileNode && ((DocViewFileNode) node).isFile(virtualFile)) {
+                return (DocViewFileNode) node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 删除文件节点, 包下没有文件时一起删除
+     */
+    private void removeFileNode(DefaultTreeModel treeMode, DocViewFileNode fileNode) {
+        DefaultMutableTreeNode directory = (DefaultMutableTreeNode) fileNode.getParent();
+        treeMode.removeNodeFromParent(fileNode);
+        if (directory.getChildCount() == 0) {
+            treeMode.removeNodeFromParent(directory);
+        }
+    }
+
+    private DefaultMutableTreeNode findChild(DefaultMutableTreeNode parent, String name) {
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) parent.getChildAt(i);
+            if (name.equals(child.getUserObject())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 和加载时一样按名称排序
+     */
+    private int insertIndex(DefaultMutableTreeNode parent, String name) {
+        int index = 0;
+        while (index < parent.getChildCount()
+                && String.valueOf(((DefaultMutableTreeNode) parent.getChildAt(index)).getUserObject()).compareTo(name) < 0) {
+            index++;
+        }
+        return index;
+    }
+
+    private void setEmptyText(JTree tree, String text) {
+        if (tree instanceof Tree) {
+            ((Tree) tree).getEmptyText().setText(text);
+        }
+    }
 }
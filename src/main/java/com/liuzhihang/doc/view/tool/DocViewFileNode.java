@@ -0,0 +1,49 @@
+package com.liuzhihang.doc.view.tool;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.pointers.VirtualFilePointer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * doc-view tree 中的文件节点, 节点名称为文件名, 持有文件指针
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 15:20
+ */
+public class DocViewFileNode extends DefaultMutableTreeNode {
+
+    private final VirtualFilePointer pointer;
+
+    public DocViewFileNode(@NotNull String fileName, @NotNull VirtualFilePointer pointer) {
+        super(fileName, false);
+        this.pointer = pointer;
+    }
+
+    @NotNull
+    public VirtualFilePointer getPointer() {
+        return pointer;
+    }
+
+    /**
+     * 文件已经删除时为 null
+     *
+     * @return 节点对应的文件
+     */
+    @Nullable
+    public VirtualFile getVirtualFile() {
+        return pointer.getFile();
+    }
+
+    /**
+     * 是否为指定文件的节点, 文件删除后按 url 比较
+     *
+     * @param virtualFile 文件
+     * @return true 是
+     */
+    public boolean isFile(@NotNull VirtualFile virtualFile) {
+        return virtualFile.equals(pointer.getFile()) || virtualFile.getUrl().equals(pointer.getUrl());
+    }
+}
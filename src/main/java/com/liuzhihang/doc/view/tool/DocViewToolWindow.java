@@ -1,12 +1,13 @@
 package com.liuzhihang.doc.view.tool;
 
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.ActionToolbar;
 import com.intellij.openapi.actionSystem.DataKey;
 import com.intellij.openapi.actionSystem.DefaultActionGroup;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.treeStructure.SimpleTree;
 import com.liuzhihang.doc.view.dto.DocView;
@@ -25,7 +26,7 @@ import javax.swing.tree.TreeSelectionModel;
  * @version 1.0
  * @date 2020-11-20
  */
-public class DocViewToolWindow extends SimpleToolWindowPanel {
+public class DocViewToolWindow extends SimpleToolWindowPanel implements Disposable {
 
     public static final DataKey<JTree> DOC_VIEW_TREE = DataKey.create("DOC_VIEW_TREE");
     public static final DataKey<JBScrollPane> DOC_VIEW_SCROLL = DataKey.create("DOC_VIEW_SCROLL");
@@ -43,8 +44,10 @@ public class DocViewToolWindow extends SimpleToolWindowPanel {
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);
         tree.setRootVisible(false);
         tree.addMouseListener(new TreeMouseListener(tree, project));
-        ApplicationManager.getApplication().invokeAndWait(
-                () -> ToolWindowService.getInstance().loadDocViewTree(project, tree));
+        // 在后台加载, 不阻塞工具窗口的创建
+        ToolWindowService.getInstance().loadDocViewTree(project, tree);
+        // 文件变动后只更新对应的节点
+        Disposer.register(this, new DocViewTreeUpdater(project, tree));
 
         // 侧边栏工具条
         ActionToolbar actionToolbar = actionManager.createActionToolbar("doc-view-toolbar",
@@ -78,4 +81,8 @@ public class DocViewToolWindow extends SimpleToolWindowPanel {
         }
         return super.getData(dataId);
     }
+
+    @Override
+    public void dispose() {
+    }
 }
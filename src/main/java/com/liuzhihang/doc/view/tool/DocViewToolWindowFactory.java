@@ -43,6 +43,7 @@ public class DocViewToolWindowFactory implements ToolWindowFactory {
         DocViewToolWindow docViewToolWindow = new DocViewToolWindow(project);
         ContentFactory contentFactory = ContentFactory.SERVICE.getInstance();
         Content content = contentFactory.createContent(docViewToolWindow, "", false);
+        content.setDisposer(docViewToolWindow);
         toolWindow.getContentManager().addContent(content);
     }
 }
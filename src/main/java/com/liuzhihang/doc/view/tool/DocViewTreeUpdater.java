@@ -0,0 +1,186 @@
+package com.liuzhihang.doc.view.tool;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.*;
+import com.intellij.util.ui.update.MergingUpdateQueue;
+import com.intellij.util.ui.update.Update;
+import com.liuzhihang.doc.view.service.ToolWindowService;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 监听 PSI 和 VFS 变动, 只更新 doc-view tree 中变动文件的节点
+ * <p>
+ * 变动先记录下来, 合并一段时间内的变动后统一更新; 切换分支等一次变动很多文件时重新加载整个树.
+ * 树正在加载时变动保留到加载完成后再更新
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 10:30
+ */
+public class DocViewTreeUpdater implements Disposable {
+
+    /**
+     * 合并变动的时间
+     */
+    private static final int MERGING_TIME_SPAN = 500;
+
+    /**
+     * 超过时重新加载整个树
+     */
+    private static final int MAX_CHANGED_FILES = 100;
+
+    private final Project project;
+    private final JTree tree;
+    private final MergingUpdateQueue queue;
+
+    /**
+     * 变动的文件
+     */
+    private final Set<VirtualFile> changedFiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 包路径变动等需要重新加载
+     */
+    private volatile boolean reload;
+
+    public DocViewTreeUpdater(@NotNull Project project, @NotNull JTree tree) {
+        this.project = project;
+        this.tree = tree;
+        // 工具窗口不可见时不更新, 再次显示时合并处理
+        this.queue = new MergingUpdateQueue("DocViewTreeUpdater", MERGING_TIME_SPAN, true, tree, this);
+
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                psiChanged(event);
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                psiChanged(event);
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                psiChanged(event);
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                psiChanged(event);
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                psiChanged(event);
+            }
+        }, this);
+
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                vfsChanged(events);
+            }
+        });
+    }
+
+    /**
+     * 文件内的变动, 文件的新增删除由 VFS 事件处理
+     */
+    private void psiChanged(@NotNull PsiTreeChangeEvent event) {
+        PsiFile psiFile = event.getFile();
+        if (psiFile instanceof PsiJavaFile && psiFile.getVirtualFile() != null) {
+            fileChanged(psiFile.getVirtualFile());
+        }
+    }
+
+    private void vfsChanged(@NotNull List<? extends VFileEvent> events) {
+        ProjectFileIndex fileIndex = ProjectFileIndex.SERVICE.getInstance(project);
+        for (VFileEvent event : events) {
+            VirtualFile file = getChangedFile(event);
+            if (file == null) {
+                continue;
+            }
+            // 删除后已经不在项目中, 交给更新时判断
+            if (!(event instanceof VFileDeleteEvent) && !fileIndex.isInContent(file)) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                // 目录移动、删除、重命名会影响其中所有文件的包名; 新建、复制的目录中的文件没有单独的事件
+                if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent
+                        || event instanceof VFileCreateEvent || event instanceof VFileCopyEvent
+                        || event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent) event).isRename()) {
+                    reload = true;
+                }
+            } else if (JavaFileType.DEFAULT_EXTENSION.equals(file.getExtension())) {
+                fileChanged(file);
+            }
+        }
+        if (reload) {
+            queueUpdate();
+        }
+    }
+
+    /**
+     * 复制事件的 getFile 是原文件, 变动的是复制出的文件
+     */
+    private static VirtualFile getChangedFile(@NotNull VFileEvent event) {
+        if (event instanceof VFileCopyEvent) {
+            VFileCopyEvent copyEvent = (VFileCopyEvent) event;
+            return copyEvent.getNewParent().findChild(copyEvent.getNewChildName());
+        }
+        return event.getFile();
+    }
+
+    private void fileChanged(@NotNull VirtualFile file) {
+        if (changedFiles.add(file) && changedFiles.size() > MAX_CHANGED_FILES) {
+            reload = true;
+        }
+        queueUpdate();
+    }
+
+    private void queueUpdate() {
+        queue.queue(Update.create(this, this::update));
+    }
+
+    /**
+     * 在 UI 线程中执行
+     */
+    private void update() {
+        if (project.isDisposed()) {
+            return;
+        }
+        List<VirtualFile> files = new ArrayList<>(changedFiles);
+        changedFiles.removeAll(files);
+        ToolWindowService toolWindowService = ToolWindowService.getInstance();
+        if (toolWindowService == null) {
+            return;
+        }
+        if (reload) {
+            reload = false;
+            changedFiles.clear();
+            toolWindowService.loadDocViewTree(project, tree);
+        } else if (!files.isEmpty() && !toolWindowService.updateDocViewTree(project, tree, files)) {
+            // 正在加载, 加载完成后再更新
+            changedFiles.addAll(files);
+            queueUpdate();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        changedFiles.clear();
+    }
+}
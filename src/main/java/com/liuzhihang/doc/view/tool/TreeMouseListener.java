@@ -8,13 +8,11 @@ import com.intellij.openapi.fileEditor.OpenFileDescriptor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.ui.treeStructure.SimpleTree;
-import com.liuzhihang.doc.view.service.impl.ToolWindowServiceImpl;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreePath;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.io.File;
 
 /**
  * toolwindow 树模块点击事件
@@ -40,15 +38,10 @@ public class TreeMouseListener extends MouseAdapter {
         if (selectionPath != null) {
             DefaultMutableTreeNode node = (DefaultMutableTreeNode) selectionPath.getLastPathComponent();
             // 双击树
-            if (e.getClickCount() == 2) {
-                String nodeName = node.getUserObject().toString();
-                if (nodeName.endsWith(".java")) {
-                    // @see com.liuzhihang.doc.view.service.impl.ToolWindowServiceImpl#fileFilter
-                    String key = node.getParent().toString()
-                            .replace(File.separator, ".")
-                            .replace("/", ".")
-                            .replace("\\", ".") + nodeName;
-                    VirtualFile virtualFile = ToolWindowServiceImpl.virtualFileCache.get(key);
+            if (e.getClickCount() == 2 && node instanceof DocViewFileNode) {
+                // @see com.liuzhihang.doc.view.service.impl.ToolWindowServiceImpl#loadPackageTree
+                VirtualFile virtualFile = ((DocViewFileNode) node).getVirtualFile();
+                if (virtualFile != null && virtualFile.isValid()) {
                     ApplicationManager.getApplication().invokeAndWait(() -> {
                         OpenFileDescriptor descriptor = new OpenFileDescriptor(project, virtualFile);
                         FileEditorManager.getInstance(project).openTextEditor(descriptor, false);
@@ -1,11 +1,15 @@
 package com.liuzhihang.doc.view.ui;
 
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.find.editorHeaderActions.Utils;
 import com.intellij.icons.AllIcons;
 import com.intellij.ide.highlighter.HighlighterFactory;
 import com.intellij.lang.Language;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.*;
 import com.intellij.openapi.actionSystem.impl.ActionToolbarImpl;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
@@ -17,34 +21,46 @@ import com.intellij.openapi.editor.highlighter.EditorHighlighter;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.FileTypeManager;
 import com.intellij.openapi.options.ShowSettingsUtil;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.popup.JBPopup;
 import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
 import com.intellij.ui.GuiUtils;
 import com.intellij.ui.WindowMoveListener;
 import com.intellij.ui.components.JBScrollBar;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.Processor;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.ui.JBUI;
 import com.intellij.util.ui.UIUtil;
 import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.config.Settings;
 import com.liuzhihang.doc.view.config.SettingsConfigurable;
 import com.liuzhihang.doc.view.dto.DocView;
 import com.liuzhihang.doc.view.dto.DocViewData;
+import com.liuzhihang.doc.view.service.DocViewService;
+import com.liuzhihang.doc.view.utils.DocViewCache;
 import com.liuzhihang.doc.view.utils.ExportUtils;
 import com.liuzhihang.doc.view.utils.NotificationUtils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.MouseEvent;
-import java.util.Map;
-import java.util.Vector;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -76,20 +92,42 @@ public class PreviewForm {
     private Editor editor;
     private PsiClass psiClass;
 
-    private Map<String, DocView> docMap;
+    private final List<PsiMethod> methodList;
+    private final DocViewService docViewService;
+
+    /**
+     * 选中时生成的文档, 与目录位置对应
+     */
+    private final DocView[] docViews;
+    private final String[] markdownTexts;
+    /**
+     * 正在生成的位置, 生成完成、失败或者取消后移除
+     */
+    private final Set<Integer> buildingSet = ConcurrentHashMap.newKeySet();
+    private final DefaultListModel<String> catalogModel = new DefaultListModel<>();
+
+    /**
+     * 关闭面板时取消后台生成
+     */
+    private final Disposable disposable = Disposer.newDisposable();
+
     private String currentMarkdownText;
     private DocView currentDocView;
 
     private JBPopup popup;
 
     public PreviewForm(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull Editor editor,
-                       @NotNull PsiClass psiClass, @NotNull Map<String, DocView> docMap) {
+                       @NotNull PsiClass psiClass, @NotNull List<PsiMethod> methodList,
+                       @NotNull DocViewService docViewService) {
 
         this.project = project;
         this.psiFile = psiFile;
         this.editor = editor;
         this.psiClass = psiClass;
-        this.docMap = docMap;
+        this.methodList = methodList;
+        this.docViewService = docViewService;
+        this.docViews = new DocView[methodList.size()];
+        this.markdownTexts = new String[methodList.size()];
 
         // UI调整
         initUI();
@@ -101,7 +139,6 @@ public class PreviewForm {
 
         // 生成文档
         buildDoc();
-        catalogList.setSelectedIndex(0);
 
         addMouseListeners();
     }
@@ -115,11 +152,12 @@ public class PreviewForm {
     }
 
     @NotNull
-    @Contract("_, _, _, _, _ -> new")
+    @Contract("_, _, _, _, _, _ -> new")
     public static PreviewForm getInstance(@NotNull Project project, @NotNull PsiFile psiFile,
                                           @NotNull Editor editor, @NotNull PsiClass psiClass,
-                                          @NotNull Map<String, DocView> docMap) {
-        return new PreviewForm(project, psiFile, editor, psiClass, docMap);
+                                          @NotNull List<PsiMethod> methodList,
+                                          @NotNull DocViewService docViewService) {
+        return new PreviewForm(project, psiFile, editor, psiClass, methodList, docViewService);
     }
 
     public void popup() {
@@ -144,6 +182,8 @@ public class PreviewForm {
                 .setCancelOnOtherWindowOpen(false)
                 .setCancelOnWindowDeactivation(false)
                 .createPopup();
+        // 关闭面板时取消后台生成
+        Disposer.register(popup, disposable);
         popup.showCenteredInCurrentWindow(project);
     }
 
@@ -262,6 +302,9 @@ public class PreviewForm {
             @Override
             public void actionPerformed(@NotNull AnActionEvent e) {
 
+                if (currentDocView == null) {
+                    return;
+                }
 
                 DocEditorForm.getInstance(project, psiClass,
                         currentDocView.getPsiMethod(),
@@ -292,7 +335,21 @@ public class PreviewForm {
             @Override
             public void actionPerformed(@NotNull AnActionEvent e) {
 
-                ExportUtils.allExportMarkdown(project, currentDocView.getClassName(), docMap);
+                List<DocView> docViewList = buildAllDocView();
+                if (docViewList != null) {
+                    ExportUtils.allExportMarkdown(project, psiClass.getName(), docViewList);
+                }
+            }
+        });
+
+        rightGroup.add(new AnAction("Export OpenAPI", "Export OpenAPI", AllIcons.Actions.Download) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+
+                List<DocView> docViewList = buildAllDocView();
+                if (docViewList != null) {
+                    ExportUtils.exportOpenApi(project, psiClass.getName(), docViewList);
+                }
             }
         });
 
@@ -300,6 +357,9 @@ public class PreviewForm {
             @Override
             public void actionPerformed(@NotNull AnActionEvent e) {
 
+                if (currentDocView == null) {
+                    return;
+                }
                 ExportUtils.exportMarkdown(project, currentDocView.getName(), currentMarkdownText);
             }
         });
@@ -308,6 +368,9 @@ public class PreviewForm {
             @Override
             public void actionPerformed(@NotNull AnActionEvent e) {
 
+                if (currentDocView == null) {
+                    return;
+                }
                 StringSelection selection = new StringSelection(currentMarkdownText);
                 Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
                 clipboard.setContents(selection, selection);
@@ -334,24 +397,31 @@ public class PreviewForm {
 
     private void buildDoc() {
 
-        catalogList.setListData(new Vector<>(docMap.keySet()));
+        catalogList.setModel(catalogModel);
+        docNameLabel.setText(psiClass.getQualifiedName());
 
-        catalogList.addListSelectionListener(catalog -> {
+        // 目录只读取方法注释, 文档在选中时生成
+        for (PsiMethod method : methodList) {
+            catalogModel.addElement(docViewService.getDocName(project, method));
+        }
 
-            String selectedValue = catalogList.getSelectedValue();
+        catalogList.addListSelectionListener(catalog -> {
 
-            currentDocView = docMap.get(selectedValue);
+            int index = catalogList.getSelectedIndex();
 
-            docNameLabel.setText(currentDocView.getFullClassName());
+            if (index < 0) {
+                return;
+            }
 
-            // 将 docView 按照模版转换
-            currentMarkdownText = DocViewData.buildMarkdownText(project, currentDocView);
+            if (docViews[index] != null) {
+                showDocView(index);
+            } else {
+                buildDocView(index);
+            }
 
-            WriteCommandAction.runWriteCommandAction(project, () -> {
-                // 光标放在顶部
-                markdownDocument.setText(currentMarkdownText);
-                // markdownEditor.set
-            });
+            // 预先生成相邻的文档
+            buildDocView(index - 1);
+            buildDocView(index + 1);
 
             // String html = MarkdownUtil.INSTANCE.generateMarkdownHtml(psiFile.getVirtualFile(), currentMarkdownText, project);
             //
@@ -363,5 +433,113 @@ public class PreviewForm {
 
         });
 
+        if (!methodList.isEmpty()) {
+            catalogList.setSelectedIndex(0);
+        }
+    }
+
+    /**
+     * 在后台生成指定位置的文档, 完成后如果仍是选中状态则展示
+     *
+     * @param index 目录位置
+     */
+    private void buildDocView(int index) {
+
+        if (index < 0 || index >= methodList.size() || docViews[index] != null || !buildingSet.add(index)) {
+            return;
+        }
+
+        PsiMethod method = methodList.get(index);
+
+        // 写操作时会中断并重新执行, 不阻塞编辑器
+        ReadAction.nonBlocking(() -> DocViewCache.getDocView(project, psiClass, method, docViewService))
+                .expireWhen(() -> !method.isValid())
+                .expireWith(disposable)
+                .finishOnUiThread(ModalityState.defaultModalityState(), pair -> {
+                    docViews[index] = pair.first;
+                    markdownTexts[index] = pair.second;
+                    buildingSet.remove(index);
+
+                    if (catalogList.getSelectedIndex() == index) {
+                        showDocView(index);
+                    }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService())
+                // 失败或者过期取消时不会回调 finishOnUiThread, 移除后再次选中可以重新生成
+                .onProcessed(pair -> buildingSet.remove(index));
+    }
+
+    private void showDocView(int index) {
+
+        currentDocView = docViews[index];
+        currentMarkdownText = markdownTexts[index];
+
+        docNameLabel.setText(currentDocView.getFullClassName());
+
+        WriteCommandAction.runWriteCommandAction(project, () -> {
+            // 光标放在顶部
+            markdownDocument.setText(currentMarkdownText);
+            // markdownEditor.set
+        });
+    }
+
+    /**
+     * 导出全部时在进度框中生成还未生成的文档, 按目录顺序返回, 重载的方法各自保留
+     *
+     * @return 文档列表, 取消时为 null
+     */
+    @Nullable
+    private List<DocView> buildAllDocView() {
+
+        // 在 UI 线程中取已经生成的文档, 后台只生成其余的
+        DocView[] builtArr = docViews.clone();
+
+        try {
+            return ProgressManager.getInstance().runProcessWithProgressSynchronously(
+                    () -> buildAllDocView(builtArr, ProgressManager.getInstance().getProgressIndicator()),
+                    DocViewBundle.message("task.preview.title"), true, project);
+        } catch (ProcessCanceledException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * 每个方法在单独的 read action 中生成, 写操作时只重新生成当前方法, 不阻塞编辑器
+     */
+    @NotNull
+    private List<DocView> buildAllDocView(@NotNull DocView[] builtArr, @NotNull ProgressIndicator indicator) {
+
+        List<Integer> buildList = new ArrayList<>();
+        for (int i = 0; i < builtArr.length; i++) {
+            if (builtArr[i] == null) {
+                buildList.add(i);
+            }
+        }
+
+        Processor<Integer> processor = index -> {
+            PsiMethod method = methodList.get(index);
+            builtArr[index] = ReadAction.nonBlocking(() -> method.isValid()
+                    ? DocViewCache.getDocView(project, psiClass, method, docViewService).first : null)
+                    .wrapProgress(indicator)
+                    .executeSynchronously();
+            return true;
+        };
+
+        if (buildList.size() > 1 && Settings.getInstance(project).getParallelBuild()) {
+            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(buildList, indicator, processor);
+        } else {
+            for (Integer index : buildList) {
+                indicator.checkCanceled();
+                processor.process(index);
+            }
+        }
+
+        List<DocView> docViewList = new ArrayList<>(builtArr.length);
+        for (DocView docView : builtArr) {
+            if (docView != null) {
+                docViewList.add(docView);
+            }
+        }
+        return docViewList;
     }
 }
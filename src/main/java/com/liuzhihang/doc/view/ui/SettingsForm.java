@@ -1,11 +1,19 @@
 package com.liuzhihang.doc.view.ui;
 
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.project.Project;
 import com.intellij.ui.IdeBorderFactory;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.labels.LinkLabel;
+import com.intellij.util.ui.FormBuilder;
 import com.intellij.util.ui.JBUI;
+import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.config.Settings;
 
 import javax.swing.*;
+import java.awt.*;
 
 /**
  * @author liuzhihang
@@ -19,9 +27,22 @@ public class SettingsForm {
     private LinkLabel<String> supportLinkLabel;
     private JPanel docDescPanel;
     private JPanel paramRequirePanel;
+    private JPanel buildPanel;
 
+    private final JBIntSpinner maxDepthSpinner = new JBIntSpinner(Settings.DEFAULT_MAX_DEPTH,
+            Settings.MIN_MAX_DEPTH, Settings.MAX_MAX_DEPTH);
+    private final JBIntSpinner maxFieldCountSpinner = new JBIntSpinner(Settings.DEFAULT_MAX_FIELD_COUNT,
+            Settings.MIN_MAX_FIELD_COUNT, Settings.MAX_MAX_FIELD_COUNT, 100);
+    private final JBIntSpinner zipCompressionLevelSpinner = new JBIntSpinner(Settings.MIN_ZIP_COMPRESSION_LEVEL,
+            Settings.MIN_ZIP_COMPRESSION_LEVEL, Settings.MAX_ZIP_COMPRESSION_LEVEL);
+    private final JBCheckBox parallelBuildCheckBox = new JBCheckBox(DocViewBundle.message("settings.build.parallel"));
+    private final JBCheckBox exportModelsCheckBox = new JBCheckBox(DocViewBundle.message("settings.build.export.models"));
 
-    public SettingsForm() {
+    private final Project project;
+
+    public SettingsForm(Project project) {
+
+        this.project = project;
 
         supportLinkLabel.setBorder(JBUI.Borders.emptyTop(20));
 
@@ -32,11 +53,76 @@ public class SettingsForm {
         docNamePanel.setBorder(IdeBorderFactory.createTitledBorder("接口名称"));
         docDescPanel.setBorder(IdeBorderFactory.createTitledBorder("接口描述"));
         paramRequirePanel.setBorder(IdeBorderFactory.createTitledBorder("是否必填"));
+        buildPanel.setBorder(IdeBorderFactory.createTitledBorder(DocViewBundle.message("settings.build.title")));
 
+        JPanel buildFormPanel = FormBuilder.createFormBuilder()
+                .addLabeledComponent(DocViewBundle.message("settings.build.max.depth") + ":", maxDepthSpinner)
+                .addLabeledComponent(DocViewBundle.message("settings.build.max.field.count") + ":", maxFieldCountSpinner)
+                .addLabeledComponent(DocViewBundle.message("settings.build.zip.level.label") + ":", zipCompressionLevelSpinner)
+                .addComponent(parallelBuildCheckBox)
+                .addComponent(exportModelsCheckBox)
+                .getPanel();
+        buildPanel.add(buildFormPanel, BorderLayout.CENTER);
 
+        reset();
     }
 
     public JPanel getRootPanel() {
         return rootPanel;
     }
+
+    public boolean isModified() {
+
+        Settings settings = Settings.getInstance(project);
+
+        return maxDepthSpinner.getNumber() != settings.getMaxDepth()
+                || maxFieldCountSpinner.getNumber() != settings.getMaxFieldCount()
+                || zipCompressionLevelSpinner.getNumber() != zipCompressionLevel(settings)
+                || parallelBuildCheckBox.isSelected() != settings.getParallelBuild()
+                || exportModelsCheckBox.isSelected() != settings.getExportModels();
+    }
+
+    public void apply() throws ConfigurationException {
+
+        int maxDepth = checkRange(maxDepthSpinner, DocViewBundle.message("settings.build.max.depth"),
+                Settings.MIN_MAX_DEPTH, Settings.MAX_MAX_DEPTH);
+        int maxFieldCount = checkRange(maxFieldCountSpinner, DocViewBundle.message("settings.build.max.field.count"),
+                Settings.MIN_MAX_FIELD_COUNT, Settings.MAX_MAX_FIELD_COUNT);
+        int zipCompressionLevel = checkRange(zipCompressionLevelSpinner, DocViewBundle.message("settings.build.zip.level"),
+                Settings.MIN_ZIP_COMPRESSION_LEVEL, Settings.MAX_ZIP_COMPRESSION_LEVEL);
+
+        Settings settings = Settings.getInstance(project);
+        settings.setMaxDepth(maxDepth);
+        settings.setMaxFieldCount(maxFieldCount);
+        settings.setZipCompressionLevel(zipCompressionLevel == Settings.MIN_ZIP_COMPRESSION_LEVEL ? null : zipCompressionLevel);
+        settings.setParallelBuild(parallelBuildCheckBox.isSelected());
+        settings.setExportModels(exportModelsCheckBox.isSelected());
+    }
+
+    public void reset() {
+
+        Settings settings = Settings.getInstance(project);
+
+        maxDepthSpinner.setNumber(settings.getMaxDepth());
+        maxFieldCountSpinner.setNumber(settings.getMaxFieldCount());
+        zipCompressionLevelSpinner.setNumber(zipCompressionLevel(settings));
+        parallelBuildCheckBox.setSelected(settings.getParallelBuild());
+        exportModelsCheckBox.setSelected(settings.getExportModels());
+    }
+
+    private static int zipCompressionLevel(Settings settings) {
+        Integer level = settings.getZipCompressionLevel();
+        return level == null ? Settings.MIN_ZIP_COMPRESSION_LEVEL : level;
+    }
+
+    /**
+     * 手动输入的值可能超出范围, 超出时不保存
+     */
+    private static int checkRange(JBIntSpinner spinner, String name, int min, int max) throws ConfigurationException {
+        int value = spinner.getNumber();
+        if (value < min || value > max) {
+            throw new ConfigurationException(DocViewBundle.message("settings.error.range", name, min, max));
+        }
+        return value;
+    }
 }
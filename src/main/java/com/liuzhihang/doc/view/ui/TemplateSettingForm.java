@@ -11,12 +11,14 @@ import com.intellij.openapi.editor.ex.EditorEx;
 import com.intellij.openapi.editor.highlighter.EditorHighlighter;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.ui.IdeBorderFactory;
 import com.intellij.ui.components.JBScrollPane;
 import com.liuzhihang.doc.view.DocViewBundle;
 import com.liuzhihang.doc.view.config.TemplateSettings;
+import com.liuzhihang.doc.view.utils.VelocityUtils;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
@@ -160,11 +162,24 @@ public class TemplateSettingForm extends DialogWrapper {
         return false;
     }
 
-    public void apply() {
+    public void apply() throws ConfigurationException {
+
+        String springTemplate = springTemplateEditor.getDocument().getText();
+        String dubboTemplate = dubboTemplateEditor.getDocument().getText();
+
+        // 保存前校验模版, 解析失败时不保存
+        String springError = VelocityUtils.validate(springTemplate);
+        if (springError != null) {
+            throw new ConfigurationException(springError, DocViewBundle.message("template.error.spring"));
+        }
+        String dubboError = VelocityUtils.validate(dubboTemplate);
+        if (dubboError != null) {
+            throw new ConfigurationException(dubboError, DocViewBundle.message("template.error.dubbo"));
+        }
 
         TemplateSettings templateSettings = TemplateSettings.getInstance(project);
-        templateSettings.setSpringTemplate(springTemplateEditor.getDocument().getText());
-        templateSettings.setDubboTemplate(dubboTemplateEditor.getDocument().getText());
+        templateSettings.setSpringTemplate(springTemplate);
+        templateSettings.setDubboTemplate(dubboTemplate);
 
     }
 
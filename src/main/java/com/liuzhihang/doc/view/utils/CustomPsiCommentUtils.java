@@ -1,10 +1,13 @@
 package com.liuzhihang.doc.view.utils;
 
 import com.google.common.collect.Lists;
+import com.intellij.psi.JavaDocTokenType;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.javadoc.PsiDocComment;
 import com.intellij.psi.javadoc.PsiDocTag;
 import com.intellij.psi.javadoc.PsiDocTagValue;
+import com.intellij.psi.javadoc.PsiDocToken;
+import com.intellij.psi.tree.IElementType;
 import com.liuzhihang.doc.view.constant.FieldTypeConstant;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
@@ -39,10 +42,7 @@ public class CustomPsiCommentUtils {
                     continue;
                 }
 
-                return element.getText()
-                        .replaceAll("[/*]+", StringUtils.EMPTY)
-                        .replace(("@" + tagName), StringUtils.EMPTY)
-                        .trim();
+                return getTagText((PsiDocTag) element);
 
             }
         }
@@ -50,6 +50,32 @@ public class CustomPsiCommentUtils {
         return "";
     }
 
+    /**
+     * 获取 tag 的内容, 只去掉标签名和注释符号, 内容中的 / 和 * 保留, 多行合并为一行
+     *
+     * @param docTag
+     * @return
+     */
+    @NotNull
+    public static String getTagText(@NotNull PsiDocTag docTag) {
+
+        StringBuilder text = new StringBuilder();
+        for (PsiElement element : docTag.getChildren()) {
+            if (element == docTag.getNameElement()) {
+                continue;
+            }
+            if (element instanceof PsiDocToken) {
+                IElementType tokenType = ((PsiDocToken) element).getTokenType();
+                if (tokenType == JavaDocTokenType.DOC_COMMENT_LEADING_ASTERISKS
+                        || tokenType == JavaDocTokenType.DOC_COMMENT_END) {
+                    continue;
+                }
+            }
+            text.append(element.getText());
+        }
+        return text.toString().replaceAll("\\s+", " ").trim();
+    }
+
     /**
      * 获取注释, 没有 tag 的注释
      *
@@ -0,0 +1,235 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.xmlb.XmlSerializer;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.config.TagsSettings;
+import com.liuzhihang.doc.view.config.TemplateSettings;
+import com.liuzhihang.doc.view.dto.*;
+import com.liuzhihang.doc.view.index.EndpointIndex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * 文档的指纹
+ * <p>
+ * 源文件部分使用接口摘要索引中的方法摘要, 不需要解析 PSI; 文档还依赖字段类型所在的其他文件以及设置和模版, 一并记录.
+ * 导出时用来跳过没有变动的源文件, 预览缓存用来判断文档是否失效
+ *
+ * @author liuzhihang
+ * @date 2021/4/19 20:30
+ */
+public class DocFingerprintUtils {
+
+    /**
+     * 源文件在接口摘要索引中的摘要, 需要在 read action 中调用
+     *
+     * @param project     当前项目
+     * @param virtualFile 源文件
+     * @return 摘要, 索引未完成或者没有接口时为 null
+     */
+    @Nullable
+    public static String getFileFingerprint(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+
+        if (DumbService.isDumb(project)) {
+            return null;
+        }
+
+        Map<String, EndpointClassSummary> data = FileBasedIndex.getInstance().getFileData(EndpointIndex.NAME, virtualFile, project);
+
+        StringBuilder builder = new StringBuilder();
+        boolean hasEndpoints = false;
+        for (Map.Entry<String, EndpointClassSummary> entry : new TreeMap<>(data).entrySet()) {
+            EndpointClassSummary summary = entry.getValue();
+            builder.append(entry.getKey()).append(':').append(summary.getQualifiedName())
+                    .append(summary.getAnnotations()).append(summary.getInterfaces());
+            for (EndpointSummary endpoint : summary.getEndpoints()) {
+                hasEndpoints = true;
+                builder.append('|').append(endpoint.getMethodName()).append('=').append(endpoint.getFingerprint());
+            }
+        }
+        return hasEndpoints ? DigestUtils.md5Hex(builder.toString()) : null;
+    }
+
+    /**
+     * 导出时源文件的指纹, 包含索引中的摘要、设置以及依赖的文件, 需要在 read action 中调用
+     *
+     * @param project             当前项目
+     * @param virtualFile         源文件
+     * @param dependencies        依赖的文件 url
+     * @param settingsFingerprint 设置和模版的摘要
+     * @return 指纹, 无法判断时为 null
+     */
+    @Nullable
+    public static String getSourceFingerprint(@NotNull Project project, @NotNull VirtualFile virtualFile,
+                                              @NotNull Collection<String> dependencies, @NotNull String settingsFingerprint) {
+
+        String fileFingerprint = getFileFingerprint(project, virtualFile);
+        if (fileFingerprint == null) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder(fileFingerprint).append('|').append(settingsFingerprint);
+        for (String url : new TreeSet<>(dependencies)) {
+            VirtualFile dependency = VirtualFileManager.getInstance().findFileByUrl(url);
+            builder.append('|').append(url).append('=').append(dependency == null ? "" : getFileStamp(dependency));
+        }
+        return DigestUtils.md5Hex(builder.toString());
+    }
+
+    /**
+     * 设置、注释 tag 和模版的摘要, 任意一项变动时改变
+     *
+     * @param project 当前项目
+     * @return 摘要
+     */
+    @NotNull
+    public static String getSettingsFingerprint(@NotNull Project project) {
+        StringBuilder builder = new StringBuilder();
+        for (Object state : new Object[]{Settings.getInstance(project), TagsSettings.getInstance(project),
+                TemplateSettings.getInstance(project)}) {
+            builder.append(JDOMUtil.writeElement(XmlSerializer.serialize(state)));
+        }
+        return DigestUtils.md5Hex(builder.toString());
+    }
+
+    /**
+     * 文档依赖的其他文件, 需要在 read action 中调用
+     * <p>
+     * 包括方法参数和返回值中的类, 展开的字段所在的类以及它们的父类. 方法所在的文件由方法的摘要判断, 其中有字段类型时才包含
+     *
+     * @param project  当前项目
+     * @param docViews 文档
+     * @return 依赖的文件
+     */
+    @NotNull
+    public static Set<PsiFile> getDependencies(@NotNull Project project, @NotNull Collection<DocView> docViews) {
+
+        Set<PsiClass> classes = new LinkedHashSet<>();
+        Set<PsiFile> files = new LinkedHashSet<>();
+        Set<PsiClass> ownerClasses = new HashSet<>();
+
+        for (DocView docView : docViews) {
+            PsiMethod psiMethod = docView.getPsiMethod();
+            if (psiMethod == null || !psiMethod.isValid()) {
+                continue;
+            }
+            ownerClasses.add(psiMethod.getContainingClass());
+            addType(psiMethod.getReturnType(), classes);
+            for (PsiParameter parameter : psiMethod.getParameterList().getParameters()) {
+                addType(parameter.getType(), classes);
+            }
+            addBodies(project, docView.getReqBodyList(), classes, files);
+            addBodies(project, docView.getRespBodyList(), classes, files);
+            if (docView.getReqParamList() != null) {
+                for (Param param : docView.getReqParamList()) {
+                    addElement(param.getPsiElement(), files);
+                }
+            }
+        }
+
+        for (PsiClass psiClass : classes) {
+            if (ownerClasses.contains(psiClass)) {
+                continue;
+            }
+            addElement(psiClass, files);
+            for (PsiClass superClass : InheritanceUtil.getSuperClasses(psiClass)) {
+                if (!CommonClassNames.JAVA_LANG_OBJECT.equals(superClass.getQualifiedName())) {
+                    addElement(superClass, files);
+                }
+            }
+        }
+
+        // 方法所在的文件由方法的摘要判断
+        for (DocView docView : docViews) {
+            PsiMethod psiMethod = docView.getPsiMethod();
+            if (psiMethod != null && psiMethod.isValid() && !hasOtherClass(psiMethod.getContainingFile(), classes, ownerClasses)) {
+                files.remove(psiMethod.getContainingFile());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 文件的时间戳和长度, 有未保存的修改时加上文档的修改次数, 重启后仍然可以比较
+     *
+     * @param virtualFile 文件
+     * @return 时间戳
+     */
+    @NotNull
+    public static String getFileStamp(@NotNull VirtualFile virtualFile) {
+        String stamp = virtualFile.getTimeStamp() + ":" + virtualFile.getLength();
+        FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        if (documentManager.isFileModified(virtualFile)) {
+            Document document = documentManager.getCachedDocument(virtualFile);
+            stamp += ":" + (document == null ? 0 : document.getModificationStamp());
+        }
+        return stamp;
+    }
+
+    private static boolean hasOtherClass(PsiFile psiFile, Set<PsiClass> classes, Set<PsiClass> ownerClasses) {
+        for (PsiClass psiClass : classes) {
+            if (!ownerClasses.contains(psiClass) && psiFile.equals(psiClass.getContainingFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addBodies(@NotNull Project project, @Nullable List<Body> bodyList,
+                                  @NotNull Set<PsiClass> classes, @NotNull Set<PsiFile> files) {
+        if (bodyList == null) {
+            return;
+        }
+        for (Body body : bodyList) {
+            addElement(body.getPsiElement(), files);
+            if (body.getClassName() != null) {
+                PsiClass psiClass = JavaPsiFacade.getInstance(project).findClass(body.getClassName(), GlobalSearchScope.allScope(project));
+                if (psiClass != null) {
+                    classes.add(psiClass);
+                }
+            }
+            addBodies(project, body.getBodyList(), classes, files);
+        }
+    }
+
+    private static void addType(@Nullable PsiType type, @NotNull Set<PsiClass> classes) {
+        if (type == null) {
+            return;
+        }
+        PsiType deepType = type.getDeepComponentType();
+        if (deepType instanceof PsiWildcardType) {
+            addType(((PsiWildcardType) deepType).getBound(), classes);
+        } else if (deepType instanceof PsiClassType) {
+            PsiClass psiClass = ((PsiClassType) deepType).resolve();
+            if (psiClass != null && !(psiClass instanceof PsiTypeParameter)) {
+                classes.add(psiClass);
+            }
+            for (PsiType parameter : ((PsiClassType) deepType).getParameters()) {
+                addType(parameter, classes);
+            }
+        }
+    }
+
+    private static void addElement(@Nullable PsiElement element, @NotNull Set<PsiFile> files) {
+        if (element != null && element.isValid()) {
+            PsiFile psiFile = element.getContainingFile();
+            if (psiFile != null) {
+                files.add(psiFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.config.TagsSettings;
+import com.liuzhihang.doc.view.config.TemplateSettings;
+import com.liuzhihang.doc.view.dto.DocView;
+import com.liuzhihang.doc.view.dto.DocViewData;
+import com.liuzhihang.doc.view.index.EndpointIndex;
+import com.liuzhihang.doc.view.service.DocViewService;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 项目级别的文档缓存
+ * <p>
+ * 以 类 + 方法 作为 key, 缓存生成的文档以及渲染后的 markdown.
+ * 每个文档记录方法的指纹和依赖的文件的修改次数, 只有方法本身或者依赖的文件变动时失效, 编辑其他文件不影响;
+ * 模版、设置、注释 tag 变动后全部失效
+ *
+ * @author liuzhihang
+ * @date 2021/4/10 11:20
+ */
+public class DocViewCache {
+
+    private static final Key<CachedValue<Map<Pair<PsiClass, PsiMethod>, CacheEntry>>> DOC_CACHE_KEY = Key.create("DocView.DocViewCache");
+
+    /**
+     * 获取文档缓存
+     *
+     * @param project 当前项目
+     * @return 类 + 方法 -> 文档
+     */
+    @NotNull
+    private static Map<Pair<PsiClass, PsiMethod>, CacheEntry> getDocCache(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, DOC_CACHE_KEY,
+                () -> CachedValueProvider.Result.create(new ConcurrentHashMap<>(32),
+                        TemplateSettings.getInstance(project).getModificationTracker(),
+                        Settings.getInstance(project).getModificationTracker(),
+                        TagsSettings.getInstance(project).getModificationTracker()), false);
+    }
+
+    /**
+     * 获取文档和渲染后的 markdown, 没有缓存时生成, 需要在 read action 中调用
+     *
+     * @param project        当前项目
+     * @param psiClass       当前类
+     * @param psiMethod      方法
+     * @param docViewService 生成文档的 service
+     * @return first 文档, 每次返回新的副本, 修改不影响缓存, second markdown
+     */
+    @NotNull
+    public static Pair<DocView, String> getDocView(@NotNull Project project, @NotNull PsiClass psiClass,
+                                                   @NotNull PsiMethod psiMethod, @NotNull DocViewService docViewService) {
+
+        Map<Pair<PsiClass, PsiMethod>, CacheEntry> docCache = getDocCache(project);
+        Pair<PsiClass, PsiMethod> key = Pair.create(psiClass, psiMethod);
+
+        int fingerprint = EndpointIndex.fingerprint(psiMethod);
+
+        CacheEntry cached = docCache.get(key);
+        if (cached != null && cached.isValid(fingerprint)) {
+            return Pair.create(cached.doc.first.copy(), cached.doc.second);
+        }
+
+        // 生成过程较长, 不放在 computeIfAbsent 中, 避免阻塞其他方法
+        DocView docView = docViewService.buildClassMethodDoc(project, psiClass, psiMethod);
+        Pair<DocView, String> doc = Pair.create(docView, DocViewData.buildMarkdownText(project, docView));
+
+        Map<PsiFile, Long> stampMap = new HashMap<>();
+        for (PsiFile psiFile : DocFingerprintUtils.getDependencies(project, Collections.singletonList(docView))) {
+            stampMap.put(psiFile, psiFile.getModificationStamp());
+        }
+        // 接口的实现类等不在方法所在文件中的类
+        PsiFile classFile = psiClass.getContainingFile();
+        if (classFile != null && !classFile.equals(psiMethod.getContainingFile())) {
+            stampMap.put(classFile, classFile.getModificationStamp());
+        }
+
+        // 删除已经失效的方法, 避免一直持有
+        docCache.keySet().removeIf(cachedKey -> !cachedKey.first.isValid() || !cachedKey.second.isValid());
+        // 缓存中保留副本, 调用方可以修改返回的文档
+        docCache.put(key, new CacheEntry(Pair.create(docView.copy(), doc.second), fingerprint, stampMap));
+        return doc;
+    }
+
+    /**
+     * 缓存的文档以及生成时方法的指纹和依赖文件的修改次数
+     */
+    private static class CacheEntry {
+
+        private final Pair<DocView, String> doc;
+        private final int fingerprint;
+        private final Map<PsiFile, Long> stampMap;
+
+        private CacheEntry(Pair<DocView, String> doc, int fingerprint, Map<PsiFile, Long> stampMap) {
+            this.doc = doc;
+            this.fingerprint = fingerprint;
+            this.stampMap = stampMap;
+        }
+
+        private boolean isValid(int currentFingerprint) {
+            if (fingerprint != currentFingerprint) {
+                return false;
+            }
+            for (Map.Entry<PsiFile, Long> entry : stampMap.entrySet()) {
+                PsiFile psiFile = entry.getKey();
+                if (!psiFile.isValid() || psiFile.getModificationStamp() != entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
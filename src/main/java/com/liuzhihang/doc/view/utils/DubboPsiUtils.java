@@ -1,6 +1,7 @@
 package com.liuzhihang.doc.view.utils;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
 import com.intellij.psi.util.InheritanceUtil;
 import com.intellij.psi.util.PsiTypesUtil;
@@ -8,6 +9,7 @@ import com.intellij.psi.util.PsiUtil;
 import com.liuzhihang.doc.view.config.Settings;
 import com.liuzhihang.doc.view.constant.FieldTypeConstant;
 import com.liuzhihang.doc.view.dto.Body;
+import com.liuzhihang.doc.view.dto.TypeSchema;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -43,114 +45,87 @@ public class DubboPsiUtils {
 
     }
 
+    /**
+     * 一次解析方法参数, 同时生成请求参数和请求示例
+     * <p>
+     * 请求示例取第一个参数
+     *
+     * @param settings
+     * @param psiMethod
+     * @return first 请求参数, second 请求示例
+     */
     @NotNull
-    public static List<Body> buildBody(Settings settings, @NotNull PsiMethod psiMethod) {
+    public static Pair<List<Body>, String> buildBodyAndJson(Settings settings, @NotNull PsiMethod psiMethod) {
 
 
         PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
 
 
         List<Body> list = new ArrayList<>();
+        String bodyJson = "{}";
 
-        for (PsiParameter parameter : parameters) {
+        for (int i = 0; i < parameters.length; i++) {
 
+            PsiParameter parameter = parameters[i];
+            String name = parameter.getName();
             PsiType type = parameter.getType();
 
             // 集合
             Body body = new Body();
             body.setRequired(false);
-            body.setName(parameter.getName());
+            body.setName(name);
             body.setType(type.getPresentableText());
 
-            // 基本类型
-            if (type instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
+            Map<String, Object> fieldMap = new LinkedHashMap<>();
 
-            } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_COLLECTION)) {
+            // 基本类型
+            if (type instanceof PsiPrimitiveType) {
+                fieldMap.put(name, PsiTypesUtil.getDefaultValue(type));
+            } else if (FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
+                fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(type.getPresentableText()));
+            } else {
 
-                List<Body> bodyList = new ArrayList<>();
-                PsiType iterableType = PsiUtil.extractIterableTypeParameter(type, false);
-                PsiClass iterableClass = PsiUtil.resolveClassInClassTypeOnly(iterableType);
-                if (iterableClass != null) {
-                    for (PsiField psiField : iterableClass.getAllFields()) {
-                        if (!settings.getExcludeFieldNames().contains(psiField.getName())
-                                && !CustomPsiUtils.hasModifierProperty(psiField, PsiModifier.STATIC)) {
-
-                            Body requestParam = ParamPsiUtils.buildBodyParam(settings, psiField, null);
-                            bodyList.add(requestParam);
-                        }
+                PsiClass childClass;
+
+                if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_COLLECTION)) {
+                    PsiType iterableType = PsiUtil.extractIterableTypeParameter(type, false);
+                    childClass = PsiUtil.resolveClassInClassTypeOnly(iterableType);
+                } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_MAP)) {
+                    //  map
+                    PsiType matValueType = PsiUtil.substituteTypeParameter(type, CommonClassNames.JAVA_UTIL_MAP, 1, false);
+                    childClass = PsiUtil.resolveClassInClassTypeOnly(matValueType);
+                } else if (type instanceof PsiClassType) {
+                    // 对象
+                    childClass = PsiUtil.resolveClassInClassTypeOnly(type);
+                    if (childClass != null && (childClass.isEnum() || childClass.isInterface() || childClass.isAnnotationType())) {
+                        childClass = null;
                     }
+                } else {
+                    // 未知类型
+                    childClass = null;
                 }
 
-                body.setBodyList(bodyList);
-
-            } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_MAP)) {
-                //  map
-
                 List<Body> bodyList = new ArrayList<>();
-                PsiType matValueType = PsiUtil.substituteTypeParameter(type, CommonClassNames.JAVA_UTIL_MAP, 1, false);
-                PsiClass iterableClass = PsiUtil.resolveClassInClassTypeOnly(matValueType);
-                if (iterableClass != null) {
-                    for (PsiField psiField : iterableClass.getAllFields()) {
-                        if (!settings.getExcludeFieldNames().contains(psiField.getName())
-                                && !CustomPsiUtils.hasModifierProperty(psiField, PsiModifier.STATIC)) {
-                            Body requestParam = ParamPsiUtils.buildBodyParam(settings, psiField, null);
-                            bodyList.add(requestParam);
-                        }
-                    }
+                if (childClass != null) {
+                    TypeSchema schema = ParamPsiUtils.getTypeSchema(settings, childClass, null);
+                    bodyList = schema.copyBodyList();
                 }
                 body.setBodyList(bodyList);
 
-            } else if (type instanceof PsiClassType) {
-                // 对象
-                PsiClass psiClass = PsiUtil.resolveClassInClassTypeOnly(type);
-                List<Body> bodyList = new ArrayList<>();
-                if (psiClass != null && !psiClass.isEnum() && !psiClass.isInterface() && !psiClass.isAnnotationType()) {
-                    for (PsiField psiField : psiClass.getAllFields()) {
-                        if (!settings.getExcludeFieldNames().contains(psiField.getName())
-                                && !CustomPsiUtils.hasModifierProperty(psiField, PsiModifier.STATIC)) {
-                            Body requestParam = ParamPsiUtils.buildBodyParam(settings, psiField, null);
-                            bodyList.add(requestParam);
-                        }
-                    }
+                // 示例沿用参数本身的类型
+                PsiClass psiClass = PsiUtil.resolveClassInType(type);
+                if (i == 0 && psiClass != null) {
+                    fieldMap = ParamPsiUtils.getFieldsAndDefaultValue(psiClass, null);
                 }
-                body.setBodyList(bodyList);
-
-            } else {
-                // 未知类型
+            }
 
+            if (i == 0) {
+                bodyJson = GsonFormatUtil.gsonFormat(fieldMap);
             }
             list.add(body);
 
         }
 
-        return list;
-    }
-
-    @NotNull
-    public static String getReqBodyJson(Settings settings, @NotNull PsiMethod psiMethod) {
-
-        PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
-
-        Map<String, Object> fieldMap = new LinkedHashMap<>();
-
-        for (PsiParameter parameter : parameters) {
-
-            String name = parameter.getName();
-            PsiType type = parameter.getType();
-
-            if (type instanceof PsiPrimitiveType) {
-                fieldMap.put(name, PsiTypesUtil.getDefaultValue(type));
-            } else if (FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
-                fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(type.getPresentableText()));
-            } else {
-                PsiClass psiClass = PsiUtil.resolveClassInType(type);
-                if (psiClass != null) {
-                    fieldMap = ParamPsiUtils.getFieldsAndDefaultValue(psiClass, null);
-                }
-            }
-            return GsonFormatUtil.gsonFormat(fieldMap);
-        }
-
-        return "{}";
+        return Pair.create(list, bodyJson);
     }
 }
@@ -0,0 +1,230 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.liuzhihang.doc.view.dto.EndpointItem;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * 接口搜索的匹配规则
+ * <p>
+ * 输入按空格拆分: 请求方式只匹配请求方式; 包含 / 的按路径逐段匹配, 段的顺序一致即可, 可以跳过中间的段,
+ * 路径参数 {id} 可以匹配任意值; 其他的匹配文档名称、方法名、类名或者路径中的某一段.
+ * 匹配度越高越靠前, 不匹配时返回 -1
+ *
+ * @author liuzhihang
+ * @date 2021/4/18 20:10
+ */
+public class EndpointMatcher {
+
+    private static final Set<String> HTTP_METHODS = new HashSet<>(Arrays.asList(
+            "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", "TRACE", "DUBBO"));
+
+    /**
+     * 请求方式相同
+     */
+    private static final int METHOD_BONUS = 2;
+
+    /**
+     * 第一段从路径开头匹配
+     */
+    private static final int START_BONUS = 3;
+
+    /**
+     * 相邻的段连续匹配
+     */
+    private static final int CONTIGUOUS_BONUS = 2;
+
+    /**
+     * 每一段都匹配
+     */
+    private static final int COMPLETE_BONUS = 10;
+
+    /**
+     * 请求方式, 大写
+     */
+    private final String httpMethod;
+
+    /**
+     * 小写的路径
+     */
+    private final String[] segments;
+
+    /**
+     * 小写的其他输入
+     */
+    private final List<String> words = new ArrayList<>();
+
+    public EndpointMatcher(@NotNull String pattern) {
+        String method = null;
+        List<String> segmentList = new ArrayList<>();
+        for (String token : pattern.trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            String upperToken = StringUtil.toUpperCase(token);
+            if (method == null && HTTP_METHODS.contains(upperToken)) {
+                method = upperToken;
+            } else if (token.indexOf('/') >= 0 || token.indexOf('#') >= 0) {
+                segmentList.addAll(Arrays.asList(EndpointItem.splitPath(token)));
+            } else {
+                words.add(StringUtil.toLowerCase(token));
+            }
+        }
+        this.httpMethod = method;
+        this.segments = segmentList.toArray(new String[0]);
+    }
+
+    /**
+     * 匹配度
+     *
+     * @param item 接口
+     * @return 匹配度, 不匹配时为 -1
+     */
+    public int matchingDegree(@NotNull EndpointItem item) {
+
+        int degree = 0;
+        if (httpMethod != null) {
+            if (!httpMethod.equalsIgnoreCase(item.getEndpoint().getHttpMethod())) {
+                return -1;
+            }
+            degree += METHOD_BONUS;
+        }
+
+        if (segments.length > 0) {
+            int pathDegree = matchPath(segments, item.getPathSegments());
+            if (pathDegree < 0) {
+                return -1;
+            }
+            degree += pathDegree;
+        }
+
+        for (String word : words) {
+            int wordDegree = matchWord(word, item);
+            if (wordDegree < 0) {
+                return -1;
+            }
+            degree += wordDegree;
+        }
+        return degree;
+    }
+
+    /**
+     * 按顺序匹配每一段, 取匹配度最高的对应方式
+     * <p>
+     * best[j] 为当前段匹配到路径第 j 段时的最高匹配度, 路径的段数很少, 计算量可以忽略
+     */
+    private static int matchPath(@NotNull String[] pattern, @NotNull String[] path) {
+
+        int n = path.length;
+        if (pattern.length > n) {
+            return -1;
+        }
+
+        int[] best = new int[n];
+        for (int i = 0; i < pattern.length; i++) {
+            int[] current = new int[n];
+            Arrays.fill(current, -1);
+            // 上一段匹配到 j 之前任意位置的最高匹配度
+            int before = -1;
+            for (int j = 0; j < n; j++) {
+                int segmentDegree = matchSegment(pattern[i], path[j]);
+                if (segmentDegree > 0) {
+                    if (i == 0) {
+                        current[j] = segmentDegree + (j == 0 ? START_BONUS : 0);
+                    } else {
+                        if (before >= 0) {
+                            current[j] = before + segmentDegree;
+                        }
+                        if (j > 0 && best[j - 1] >= 0) {
+                            current[j] = Math.max(current[j], best[j - 1] + segmentDegree + CONTIGUOUS_BONUS);
+                        }
+                    }
+                }
+                if (i > 0) {
+                    before = Math.max(before, best[j]);
+                }
+            }
+            best = current;
+        }
+
+        int degree = -1;
+        for (int j = 0; j < n; j++) {
+            if (best[j] >= 0) {
+                int bonus = j == n - 1 && pattern.length == n ? COMPLETE_BONUS : 0;
+                degree = Math.max(degree, best[j] + bonus);
+            }
+        }
+        return degree;
+    }
+
+    /**
+     * 单段的匹配度, 0 为不匹配
+     */
+    private static int matchSegment(@NotNull String pattern, @NotNull String segment) {
+        if (segment.equals(pattern)) {
+            return 10;
+        }
+        // 路径参数匹配任意值
+        if (isVariable(segment)) {
+            return 4;
+        }
+        if (isVariable(pattern)) {
+            return 0;
+        }
+        if (segment.startsWith(pattern)) {
+            return 7;
+        }
+        if (segment.contains(pattern)) {
+            return 5;
+        }
+        return isSubsequence(pattern, segment) ? 2 : 0;
+    }
+
+    private static int matchWord(@NotNull String word, @NotNull EndpointItem item) {
+        int degree = -1;
+        if (item.getLowerDocName().startsWith(word)) {
+            degree = 10;
+        } else if (item.getLowerDocName().contains(word)) {
+            degree = 8;
+        }
+        if (item.getLowerMethodName().startsWith(word)) {
+            degree = Math.max(degree, 8);
+        } else if (isSubsequence(word, item.getLowerMethodName())) {
+            degree = Math.max(degree, 3);
+        }
+        if (item.getLowerClassName().contains(word)) {
+            degree = Math.max(degree, 4);
+        }
+        for (String segment : item.getPathSegments()) {
+            if (!isVariable(segment)) {
+                int segmentDegree = matchSegment(word, segment);
+                if (segmentDegree > 0) {
+                    degree = Math.max(degree, segmentDegree);
+                }
+            }
+        }
+        return degree;
+    }
+
+    private static boolean isVariable(@NotNull String segment) {
+        return segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    /**
+     * 首字母相同, 其他字符按顺序出现
+     */
+    private static boolean isSubsequence(@NotNull String pattern, @NotNull String text) {
+        if (pattern.isEmpty() || text.isEmpty() || pattern.charAt(0) != text.charAt(0)) {
+            return false;
+        }
+        int index = 0;
+        for (int i = 0; i < text.length() && index < pattern.length(); i++) {
+            if (text.charAt(i) == pattern.charAt(index)) {
+                index++;
+            }
+        }
+        return index == pattern.length();
+    }
+}
@@ -0,0 +1,200 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.config.TagsSettings;
+import com.liuzhihang.doc.view.constant.AnnotationConstant;
+import com.liuzhihang.doc.view.dto.EndpointClassSummary;
+import com.liuzhihang.doc.view.dto.EndpointItem;
+import com.liuzhihang.doc.view.dto.EndpointSummary;
+import com.liuzhihang.doc.view.index.EndpointIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * 通过接口摘要索引查找项目中的接口类, 不需要解析 PSI, 耗时和接口类的数量相关, 和文件数量无关
+ * <p>
+ * Spring 为包含配置的类注解的类; Dubbo 为 Dubbo 注解的实现类所实现的接口, 以及名称以 Service 结尾的接口
+ *
+ * @author liuzhihang
+ * @date 2021/4/16 10:20
+ */
+public class EndpointSearchUtils {
+
+    private static final List<String> DUBBO_SERVICE_ANNOTATIONS = Arrays.asList(
+            AnnotationConstant.DUBBO_SERVICE,
+            AnnotationConstant.APACHE_DUBBO_SERVICE,
+            AnnotationConstant.ALIBABA_DUBBO_SERVICE);
+
+    private static final String SERVICE_SUFFIX = "Service";
+
+    private static final Key<CachedValue<List<EndpointItem>>> ENDPOINTS_KEY = Key.create("DocView.EndpointSearchUtils.endpoints");
+
+    /**
+     * 查找项目源码 (不包含测试) 中的接口类, 需要在 read action 中且索引可用时调用
+     *
+     * @param project         当前项目
+     * @param dubboInterfaces Dubbo 注解的实现类所实现的接口名称, 查找时添加, 增量更新时使用
+     * @return 文件 -> 文件中的接口类
+     */
+    @NotNull
+    public static Map<VirtualFile, EndpointClassSummary> findEndpointClasses(@NotNull Project project,
+                                                                             @NotNull Set<String> dubboInterfaces) {
+
+        GlobalSearchScope scope = GlobalSearchScopesCore.projectProductionScope(project);
+        FileBasedIndex index = FileBasedIndex.getInstance();
+
+        Map<VirtualFile, List<EndpointClassSummary>> fileMap = new LinkedHashMap<>();
+        processValues(index, EndpointIndex.SPRING_KEY, scope, fileMap);
+        processValues(index, EndpointIndex.SERVICE_INTERFACE_KEY, scope, fileMap);
+        processValues(index, EndpointIndex.DUBBO_SERVICE_KEY, scope, fileMap);
+
+        fileMap.values().forEach(summaries -> collectDubboInterfaces(summaries, dubboInterfaces));
+
+        // 名称不以 Service 结尾的 Dubbo 接口按名称查找
+        for (String name : dubboInterfaces) {
+            if (!name.endsWith(SERVICE_SUFFIX)) {
+                processValues(index, EndpointIndex.interfaceKey(name), scope, fileMap);
+            }
+        }
+
+        Set<String> classAnnotations = Settings.getInstance(project).getContainClassAnnotationName();
+
+        Map<VirtualFile, EndpointClassSummary> resultMap = new LinkedHashMap<>();
+        fileMap.forEach((file, summaries) -> {
+            EndpointClassSummary summary = findEndpointClass(summaries, classAnnotations, dubboInterfaces);
+            if (summary != null) {
+                resultMap.put(file, summary);
+            }
+        });
+        return resultMap;
+    }
+
+    /**
+     * 查找指定文件中的接口类, 只读取这些文件的索引, 用于文件变动后的增量更新
+     * <p>
+     * 文件中 Dubbo 实现类的接口会添加到 dubboInterfaces 中, 数量增加时其他文件的结果可能变化, 需要重新查找全部
+     *
+     * @param project         当前项目
+     * @param files           变动的文件, 可以是已经删除的文件
+     * @param dubboInterfaces 上次查找时的 Dubbo 接口名称
+     * @return 文件 -> 文件中的接口类, 不包含没有接口类的文件
+     */
+    @NotNull
+    public static Map<VirtualFile, EndpointClassSummary> findEndpointClasses(@NotNull Project project,
+                                                                             @NotNull Collection<VirtualFile> files,
+                                                                             @NotNull Set<String> dubboInterfaces) {
+
+        GlobalSearchScope scope = GlobalSearchScopesCore.projectProductionScope(project);
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        Set<String> classAnnotations = Settings.getInstance(project).getContainClassAnnotationName();
+
+        Map<VirtualFile, EndpointClassSummary> resultMap = new LinkedHashMap<>();
+        for (VirtualFile file : files) {
+            if (!file.isValid() || !scope.contains(file)) {
+                continue;
+            }
+            List<EndpointClassSummary> summaries = new ArrayList<>(index.getFileData(EndpointIndex.NAME, file, project).values());
+            collectDubboInterfaces(summaries, dubboInterfaces);
+            EndpointClassSummary summary = findEndpointClass(summaries, classAnnotations, dubboInterfaces);
+            if (summary != null) {
+                resultMap.put(file, summary);
+            }
+        }
+        return resultMap;
+    }
+
+    /**
+     * 项目中的全部接口, 用于按路径搜索, PSI 或者设置变动后重新读取索引, 需要在 read action 中且索引可用时调用
+     *
+     * @param project 当前项目
+     * @return 接口, 按文件和方法在文件中的顺序
+     */
+    @NotNull
+    public static List<EndpointItem> findEndpoints(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, ENDPOINTS_KEY, () -> {
+            String nameTag = TagsSettings.getInstance(project).getName();
+            List<EndpointItem> items = new ArrayList<>();
+            findEndpointClasses(project, new HashSet<>()).forEach((file, summary) -> {
+                String className = StringUtil.getShortName(summary.getQualifiedName());
+                for (EndpointSummary endpoint : summary.getEndpoints()) {
+                    items.add(new EndpointItem(file, className, endpoint, endpoint.getDocName(nameTag)));
+                }
+            });
+            // 注释中的文档名称等变动不是 Java 结构变动, 需要依赖全部 PSI 变动; 文件新增删除由 VFS 结构变动处理
+            return CachedValueProvider.Result.create(Collections.unmodifiableList(items),
+                    PsiModificationTracker.MODIFICATION_COUNT,
+                    VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                    Settings.getInstance(project).getModificationTracker(),
+                    TagsSettings.getInstance(project).getModificationTracker());
+        }, false);
+    }
+
+    private static void processValues(@NotNull FileBasedIndex index, @NotNull String key, @NotNull GlobalSearchScope scope,
+                                      @NotNull Map<VirtualFile, List<EndpointClassSummary>> fileMap) {
+        index.processValues(EndpointIndex.NAME, key, null, (file, value) -> {
+            fileMap.computeIfAbsent(file, k -> new ArrayList<>()).add(value);
+            return true;
+        }, scope);
+    }
+
+    /**
+     * Dubbo 注解的实现类所实现的接口, 只比较简单类名
+     */
+    private static void collectDubboInterfaces(@NotNull List<EndpointClassSummary> summaries,
+                                               @NotNull Set<String> dubboInterfaces) {
+        for (EndpointClassSummary summary : summaries) {
+            if (!summary.isInterface() && matches(summary.getAnnotations(), DUBBO_SERVICE_ANNOTATIONS)) {
+                summary.getInterfaces().forEach(name -> dubboInterfaces.add(StringUtil.getShortName(name)));
+            }
+        }
+    }
+
+    /**
+     * 导出和预览时只处理文件中的第一个类
+     */
+    @Nullable
+    private static EndpointClassSummary findEndpointClass(@NotNull List<EndpointClassSummary> summaries,
+                                                          @NotNull Set<String> classAnnotations,
+                                                          @NotNull Set<String> dubboInterfaces) {
+        for (EndpointClassSummary summary : summaries) {
+            if (summary.getEndpoints().isEmpty()) {
+                continue;
+            }
+            String name = StringUtil.getShortName(summary.getQualifiedName());
+            boolean spring = !summary.isInterface() && matches(summary.getAnnotations(), classAnnotations);
+            boolean dubbo = summary.isInterface() && (name.endsWith(SERVICE_SUFFIX) || dubboInterfaces.contains(name));
+            if (spring || dubbo) {
+                return summary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 索引中的名称和全名比较, 索引中是简单类名时只比较简单类名
+     */
+    private static boolean matches(@NotNull List<String> names, @NotNull Collection<String> qualifiedNames) {
+        for (String name : names) {
+            for (String qualifiedName : qualifiedNames) {
+                if (name.contains(".") ? name.equals(qualifiedName) : qualifiedName.endsWith("." + name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
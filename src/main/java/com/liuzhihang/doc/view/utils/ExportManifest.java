@@ -0,0 +1,329 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.liuzhihang.doc.view.dto.DocView;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导出目录中的文件清单
+ * <p>
+ * 记录每个导出文件内容的摘要, 再次导出时只写入有变动的文件, 并删除已经不存在的接口对应的文件.
+ * 只会删除本次导出的源文件在清单中记录的文件, 其他源文件上次导出的文件保留并合并到新的清单, 目录中的其他文件不受影响.
+ * 同时记录每个源文件的指纹和依赖的文件, 指纹没有变动时不再解析和渲染, 直接保留上次导出的文件
+ *
+ * @author liuzhihang
+ * @date 2021/4/12 10:40
+ */
+public class ExportManifest implements ExportWriter {
+
+    private static final Logger LOGGER = Logger.getInstance(ExportManifest.class);
+
+    public static final String MANIFEST_NAME = ".docview-manifest.json";
+
+    private final File outputDir;
+
+    /**
+     * 上次导出的 文件相对路径 -> 内容摘要
+     */
+    private final Map<String, String> previousMap;
+
+    /**
+     * 上次导出的 源文件对应的文件夹 -> 指纹
+     */
+    private final Map<String, SourceFingerprint> previousSources;
+
+    /**
+     * 本次导出的 源文件对应的文件夹 -> 指纹
+     */
+    private final Map<String, SourceFingerprint> currentSources = new ConcurrentHashMap<>();
+
+    /**
+     * 本次导出的 文件相对路径 -> 内容摘要
+     */
+    private final Map<String, String> currentMap = new ConcurrentHashMap<>();
+
+    /**
+     * 本次导出的源文件对应的文件夹
+     */
+    private final Set<String> sourceFolders = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private int deleted;
+
+    private ExportManifest(@NotNull File outputDir, @NotNull ManifestData previous) {
+        this.outputDir = outputDir;
+        this.previousMap = previous.files == null ? new HashMap<>() : previous.files;
+        this.previousSources = previous.sources == null ? new HashMap<>() : previous.sources;
+    }
+
+    /**
+     * 读取目录中的清单, 没有清单时视为首次导出, 兼容只有文件摘要的旧清单
+     *
+     * @param outputDir 导出目录
+     * @return 清单
+     */
+    @NotNull
+    public static ExportManifest load(@NotNull File outputDir) {
+
+        File file = new File(outputDir, MANIFEST_NAME);
+        ManifestData previous = null;
+
+        if (file.isFile()) {
+            try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                Gson gson = new Gson();
+                JsonObject json = gson.fromJson(reader, JsonObject.class);
+                JsonElement files = json == null ? null : json.get("files");
+                if (files != null && files.isJsonObject()) {
+                    previous = gson.fromJson(json, ManifestData.class);
+                } else if (json != null) {
+                    previous = new ManifestData();
+                    previous.files = gson.fromJson(json, new TypeToken<Map<String, String>>() {
+                    }.getType());
+                }
+            } catch (Exception e) {
+                LOGGER.warn("DocView read export manifest failed", e);
+            }
+        }
+
+        return new ExportManifest(outputDir, previous == null ? new ManifestData() : previous);
+    }
+
+    /**
+     * 目录中是否存在清单
+     *
+     * @param outputDir 导出目录
+     * @return true 存在
+     */
+    public static boolean exists(@NotNull File outputDir) {
+        return new File(outputDir, MANIFEST_NAME).isFile();
+    }
+
+    /**
+     * 写入文件, 内容和上次导出相同且文件仍存在时跳过
+     * <p>
+     * 渲染到同目录下的临时文件并同时计算摘要, 有变动时替换原文件, 否则删除临时文件, 不在内存中保留文档内容
+     *
+     * @param path     相对路径
+     * @param docView  接口文档
+     * @param markdown 文件内容
+     * @return true 写入, false 跳过
+     * @throws IOException 写入失败
+     */
+    @Override
+    public boolean write(@NotNull String path, @NotNull DocView docView, @NotNull Markdown markdown) throws IOException {
+
+        File file = new File(outputDir, path);
+        FileUtil.createParentDirs(file);
+        File tempFile = File.createTempFile("." + file.getName() + "-", ".tmp", file.getParentFile());
+
+        try {
+            MessageDigest digest = DigestUtils.getMd5Digest();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new DigestOutputStream(new FileOutputStream(tempFile), digest), StandardCharsets.UTF_8))) {
+                markdown.writeTo(writer);
+            }
+            String fingerprint = Hex.encodeHexString(digest.digest());
+
+            if (fingerprint.equals(previousMap.get(path)) && file.isFile()) {
+                currentMap.put(path, fingerprint);
+                unchanged.incrementAndGet();
+                return false;
+            }
+
+            ExportUtils.moveFile(tempFile, file);
+            currentMap.put(path, fingerprint);
+            return true;
+        } finally {
+            FileUtil.delete(tempFile);
+        }
+    }
+
+    @Override
+    public void source(@NotNull String folder) {
+        sourceFolders.add(folder);
+    }
+
+    /**
+     * 本次未能生成的文件, 保留上次导出的结果
+     * <p>
+     * 文件不是本次的内容, 不记录源文件的指纹, 下次导出时重新生成
+     *
+     * @param path 相对路径
+     */
+    @Override
+    public void keep(@NotNull String path) {
+        String fingerprint = previousMap.get(path);
+        if (fingerprint != null) {
+            currentMap.put(path, fingerprint);
+        }
+        int index = path.lastIndexOf('/');
+        if (index > 0) {
+            currentSources.remove(path.substring(0, index));
+        }
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Collection<String> getDependencies(@NotNull String folder) {
+        SourceFingerprint source = previousSources.get(folder);
+        if (source == null || source.fingerprint == null) {
+            return null;
+        }
+        return source.dependencies == null ? Collections.emptyList() : source.dependencies;
+    }
+
+    /**
+     * 源文件的指纹和上次导出时相同, 并且上次导出的文件都还存在时, 保留这些文件
+     *
+     * @param folder      源文件对应的文件夹
+     * @param fingerprint 源文件的指纹
+     * @return true 已保留
+     */
+    @Override
+    public boolean keepSource(@NotNull String folder, @NotNull String fingerprint) {
+
+        SourceFingerprint source = previousSources.get(folder);
+        if (source == null || !fingerprint.equals(source.fingerprint)) {
+            return false;
+        }
+
+        Map<String, String> folderMap = new HashMap<>();
+        for (Map.Entry<String, String> entry : previousMap.entrySet()) {
+            String path = entry.getKey();
+            if (path.startsWith(folder + "/") && path.indexOf('/', folder.length() + 1) < 0) {
+                if (!new File(outputDir, path).isFile()) {
+                    return false;
+                }
+                folderMap.put(path, entry.getValue());
+            }
+        }
+        if (folderMap.isEmpty()) {
+            return false;
+        }
+
+        currentMap.putAll(folderMap);
+        currentSources.put(folder, source);
+        sourceFolders.add(folder);
+        unchanged.addAndGet(folderMap.size());
+        return true;
+    }
+
+    @Override
+    public void fingerprint(@NotNull String folder, @NotNull String fingerprint, @NotNull Collection<String> dependencies) {
+        currentSources.put(folder, new SourceFingerprint(fingerprint, new ArrayList<>(new TreeSet<>(dependencies))));
+    }
+
+    /**
+     * 导出完成, 删除本次导出的源文件中已经不存在的接口对应的文件, 并保存清单
+     *
+     * @throws IOException 保存失败
+     */
+    @Override
+    public void finish() throws IOException {
+
+        for (Map.Entry<String, String> entry : previousMap.entrySet()) {
+            String path = entry.getKey();
+            if (currentMap.containsKey(path)) {
+                continue;
+            }
+            // 不是本次导出的源文件, 保留
+            if (!isInSourceFolder(path)) {
+                currentMap.put(path, entry.getValue());
+                continue;
+            }
+            File file = new File(outputDir, path);
+            if (FileUtil.delete(file)) {
+                deleted++;
+            }
+            // 删除后的空文件夹一并删除
+            File parent = file.getParentFile();
+            String[] children = parent.list();
+            if (!FileUtil.filesEqual(parent, outputDir) && children != null && children.length == 0) {
+                FileUtil.delete(parent);
+            }
+        }
+
+        // 不是本次导出的源文件, 指纹保留
+        for (Map.Entry<String, SourceFingerprint> entry : previousSources.entrySet()) {
+            if (!sourceFolders.contains(entry.getKey())) {
+                currentSources.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+
+        ManifestData current = new ManifestData();
+        current.files = new TreeMap<>(currentMap);
+        current.sources = new TreeMap<>(currentSources);
+
+        try (Writer writer = ExportUtils.newWriter(new File(outputDir, MANIFEST_NAME))) {
+            new Gson().toJson(current, writer);
+        }
+    }
+
+    /**
+     * 文件是否在本次导出的源文件对应的文件夹中, 文件夹是源码目录下的相对路径, 可以有多级
+     */
+    private boolean isInSourceFolder(@NotNull String path) {
+        for (int index = path.indexOf('/'); index > 0; index = path.indexOf('/', index + 1)) {
+            if (sourceFolders.contains(path.substring(0, index))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    @Override
+    public int getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * 清单文件的内容
+     */
+    private static class ManifestData {
+
+        private Map<String, String> files;
+
+        private Map<String, SourceFingerprint> sources;
+    }
+
+    /**
+     * 源文件的指纹和依赖的文件
+     */
+    private static class SourceFingerprint {
+
+        private String fingerprint;
+
+        private List<String> dependencies;
+
+        private SourceFingerprint(String fingerprint, List<String> dependencies) {
+            this.fingerprint = fingerprint;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassOwner;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.liuzhihang.doc.view.DocViewBundle;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.dto.DocView;
+import com.liuzhihang.doc.view.dto.DocViewData;
+import com.liuzhihang.doc.view.dto.DocViewModels;
+import com.liuzhihang.doc.view.service.DocViewService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量导出流水线
+ * <p>
+ * 分为 解析 -> 写入 两个阶段, 阶段之间使用有界队列连接, 队列满时解析等待.
+ * 解析在 read action 中进行, 写操作时会中断并重新执行, 可以并行; 写入只有一个线程, 使用缓存的模版直接渲染到输出,
+ * 队列中只有文档模型, 不保留渲染后的 markdown. 单独的渲染阶段需要把渲染结果整个放入队列, 相比解析渲染的耗时很少, 所以和写入合并.
+ * 入队时响应取消, 写入线程结束后解析不再等待队列.
+ * 写入目标可以是带清单的文件夹, 只写入有变动的文件, 全部完成后删除已经不存在的接口对应的文件; 也可以是一个 zip 文件.
+ * 带清单时按源文件的指纹跳过上次导出后没有变动的源文件, 不再解析
+ *
+ * @author liuzhihang
+ * @date 2021/4/11 15:10
+ */
+public class ExportPipeline {
+
+    private static final Logger LOGGER = Logger.getInstance(ExportPipeline.class);
+
+    /**
+     * 解析和写入之间队列的容量
+     */
+    private static final int QUEUE_CAPACITY = 64;
+
+    /**
+     * 入队等待的时间, 超时后检查是否取消
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    /**
+     * 队列结束标记
+     */
+    private static final ExportItem END = new ExportItem(null, null, null, null);
+
+    /**
+     * 每个文件的嵌套对象生成到同一文件夹下的 Models.md
+     */
+    private static final String MODELS_NAME = "Models";
+
+    private final Project project;
+    private final ExportWriter writer;
+    private final boolean exportModels;
+
+    /**
+     * 设置和模版的摘要, 写入目标记录指纹时才计算
+     */
+    private String settingsFingerprint;
+
+    private final BlockingQueue<ExportItem> writeQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * 写入线程已经结束, 不再消费队列
+     */
+    private volatile boolean writeStopped;
+
+    private final AtomicInteger extractedCount = new AtomicInteger();
+    private final AtomicInteger success = new AtomicInteger();
+    private final AtomicInteger fail = new AtomicInteger();
+
+    public ExportPipeline(@NotNull Project project, @NotNull ExportWriter writer) {
+        this.project = project;
+        this.writer = writer;
+        this.exportModels = writer.isMarkdown() && Boolean.TRUE.equals(Settings.getInstance(project).getExportModels());
+    }
+
+    /**
+     * 导出文件中的接口文档, 每个文件一个文件夹, 每个接口一个文件
+     * <p>
+     * 只持有文件, 解析时才加载 PSI, 一个文件处理完即可释放, 内存不随文件数量增长
+     *
+     * @param fileList  需要导出的文件
+     * @param indicator 进度
+     */
+    public void export(@NotNull List<VirtualFile> fileList, @NotNull ProgressIndicator indicator) {
+
+        indicator.setIndeterminate(false);
+
+        if (writer.isIncremental()) {
+            settingsFingerprint = DocFingerprintUtils.getSettingsFingerprint(project);
+        }
+
+        // 解析使用其余的 CPU 核, 另外一个线程渲染并写入
+        int extractCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("DocView Export", extractCount + 1);
+
+        try {
+            ConcurrentLinkedQueue<VirtualFile> fileQueue = new ConcurrentLinkedQueue<>(fileList);
+
+            List<Future<?>> extractFutures = new ArrayList<>();
+            for (int i = 0; i < extractCount; i++) {
+                extractFutures.add(executor.submit(() -> extract(fileQueue, fileList.size(), indicator)));
+            }
+            Future<?> writeFuture = executor.submit(this::write);
+
+            // 解析全部结束后, 给写入线程结束标记
+            await(extractFutures, indicator);
+            offer(END, indicator);
+            await(writeFuture, indicator);
+
+            // 取消时不会执行到这里, 不会误删文件
+            writer.finish();
+
+        } catch (IOException e) {
+            LOGGER.warn("DocView finish export failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } finally {
+            // 取消或者异常时中断所有阶段
+            executor.shutdownNow();
+            writer.close();
+        }
+    }
+
+    public int getSuccess() {
+        return success.get();
+    }
+
+    public int getFail() {
+        return fail.get();
+    }
+
+    public int getUnchanged() {
+        return writer.getUnchanged();
+    }
+
+    public int getDeleted() {
+        return writer.getDeleted();
+    }
+
+    /**
+     * 解析阶段, 从文件队列中取文件生成文档
+     */
+    private void extract(ConcurrentLinkedQueue<VirtualFile> fileQueue, int total, ProgressIndicator indicator) {
+
+        VirtualFile virtualFile;
+        while ((virtualFile = fileQueue.poll()) != null) {
+
+            VirtualFile targetFile = virtualFile;
+
+            // 不同包或模块中可以有同名的类, 按源码目录下的路径区分
+            String folder = ReadAction.compute(() -> getExportFolder(project, targetFile));
+
+            // 不再是接口类的文件也需要记录, 清单中它原来的文件会被删除
+            writer.source(folder);
+
+            if (!keepSource(targetFile, folder, indicator)) {
+
+                // 写操作时会中断并重新执行, 不阻塞编辑器
+                Map<String, DocView> docViewMap = ReadAction.nonBlocking(() -> buildFileDoc(targetFile, folder))
+                        .wrapProgress(indicator)
+                        .executeSynchronously();
+
+                if (docViewMap != null && !docViewMap.isEmpty()) {
+                    FileModels fileModels = exportModels ? new FileModels(docViewMap.size()) : null;
+                    for (Map.Entry<String, DocView> entry : docViewMap.entrySet()) {
+                        offer(new ExportItem(folder, entry.getKey(), entry.getValue(), fileModels), indicator);
+                    }
+                }
+            }
+
+            int extracted = extractedCount.incrementAndGet();
+            indicator.setFraction((double) extracted / total);
+            indicator.setText2(DocViewBundle.message("task.export.progress", extracted, total));
+        }
+    }
+
+    /**
+     * 源文件和依赖的文件都没有变动时, 保留上次导出的文件
+     * <p>
+     * 源文件的指纹来自接口摘要索引, 不需要解析 PSI
+     *
+     * @return true 已保留, 不需要再解析
+     */
+    private boolean keepSource(VirtualFile virtualFile, String folder, ProgressIndicator indicator) {
+
+        Collection<String> dependencies = settingsFingerprint == null ? null : writer.getDependencies(folder);
+        if (dependencies == null) {
+            return false;
+        }
+
+        String fingerprint = ReadAction.nonBlocking(() -> DocFingerprintUtils.getSourceFingerprint(project, virtualFile, dependencies, settingsFingerprint))
+                .wrapProgress(indicator)
+                .executeSynchronously();
+
+        return fingerprint != null && writer.keepSource(folder, fingerprint);
+    }
+
+    /**
+     * 生成文件的接口文档, 需要记录指纹时在同一个 read action 中计算依赖的文件和指纹
+     */
+    @Nullable
+    private Map<String, DocView> buildFileDoc(VirtualFile virtualFile, String folder) {
+
+        Map<String, DocView> docViewMap = buildFileDoc(project, virtualFile);
+
+        if (settingsFingerprint != null && docViewMap != null && !docViewMap.isEmpty()) {
+            List<String> dependencies = new ArrayList<>();
+            for (PsiFile psiFile : DocFingerprintUtils.getDependencies(project, docViewMap.values())) {
+                VirtualFile dependency = psiFile.getVirtualFile();
+                if (dependency != null) {
+                    dependencies.add(dependency.getUrl());
+                }
+            }
+            String fingerprint = DocFingerprintUtils.getSourceFingerprint(project, virtualFile, dependencies, settingsFingerprint);
+            if (fingerprint != null) {
+                writer.fingerprint(folder, fingerprint, dependencies);
+            }
+        }
+        return docViewMap;
+    }
+
+    /**
+     * 文件导出的文件夹, 为源码目录下的相对路径去掉扩展名, 例如 com/liuzhihang/UserController
+     * <p>
+     * 不在源码目录中时使用文件名
+     *
+     * @param project     当前项目
+     * @param virtualFile 文件
+     * @return 相对导出目录的文件夹
+     */
+    @NotNull
+    static String getExportFolder(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+
+        VirtualFile sourceRoot = ProjectFileIndex.SERVICE.getInstance(project).getSourceRootForFile(virtualFile);
+        String path = sourceRoot == null ? null : VfsUtilCore.getRelativePath(virtualFile, sourceRoot, '/');
+
+        return StringUtil.isEmpty(path) ? virtualFile.getNameWithoutExtension() : FileUtilRt.getNameWithoutExtension(path);
+    }
+
+    /**
+     * 生成文件中第一个类的全部接口文档, 需要在 read action 中调用
+     *
+     * @param project     当前项目
+     * @param virtualFile 文件
+     * @return 文档名称 -> 文档, 不是接口类时返回 null
+     */
+    @Nullable
+    static Map<String, DocView> buildFileDoc(@NotNull Project project, @NotNull VirtualFile virtualFile) {
+
+        if (!virtualFile.isValid()) {
+            return null;
+        }
+
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+        if (!(psiFile instanceof PsiClassOwner)) {
+            return null;
+        }
+
+        PsiClass[] classes = ((PsiClassOwner) psiFile).getClasses();
+        if (classes.length == 0) {
+            return null;
+        }
+
+        DocViewService docViewService = DocViewService.getDocViewService(project, classes[0]);
+        return docViewService == null ? null : docViewService.buildClassDoc(project, classes[0]);
+    }
+
+    /**
+     * 写入阶段, 单线程按模版渲染并顺序写入
+     * <p>
+     * 单个文档失败不能结束写入, 否则解析线程会一直等待队列
+     */
+    private void write() {
+        try {
+            ExportItem item;
+            while ((item = writeQueue.take()) != END) {
+                try {
+                    writeItem(item);
+                } catch (ProcessCanceledException e) {
+                    throw e;
+                } catch (Exception e) {
+                    LOGGER.warn("DocView export write failed: " + item.getPath(), e);
+                    writer.keep(item.getPath());
+                    fail.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writeStopped = true;
+        }
+    }
+
+    private void writeItem(ExportItem item) throws IOException {
+
+        DocView docView = item.docView;
+        DocViewModels models = item.fileModels == null ? null : item.fileModels.models;
+
+        try {
+            if (writer.write(item.getPath(), docView, out -> DocViewData.writeMarkdownText(project, docView, models, out))) {
+                success.incrementAndGet();
+            }
+        } finally {
+            // 文件中的接口全部处理后生成 Models, 其中某个接口失败时也生成
+            if (item.fileModels != null && --item.fileModels.remaining == 0) {
+                writeModels(item.folder, models);
+            }
+        }
+    }
+
+    private void writeModels(String folder, DocViewModels models) {
+
+        String path = new ExportItem(folder, MODELS_NAME, null, null).getPath();
+        try {
+            String modelsText = models.buildModels();
+            if (modelsText.isEmpty()) {
+                return;
+            }
+
+            DocView docView = new DocView();
+            docView.setName(MODELS_NAME);
+            docView.setClassName(folder);
+
+            if (writer.write(path, docView, out -> out.write(modelsText))) {
+                success.incrementAndGet();
+            }
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.warn("DocView export write failed: " + path, e);
+            writer.keep(path);
+            fail.incrementAndGet();
+        }
+    }
+
+    /**
+     * 入队, 队列满时等待下游消费, 期间响应取消
+     *
+     * @param item      文档
+     * @param indicator 进度
+     */
+    private void offer(ExportItem item, ProgressIndicator indicator) {
+        try {
+            while (!writeQueue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                indicator.checkCanceled();
+                if (writeStopped) {
+                    throw new IllegalStateException("DocView export writer stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        }
+    }
+
+    private static void await(List<Future<?>> futures, ProgressIndicator indicator) throws InterruptedException {
+        for (Future<?> future : futures) {
+            await(future, indicator);
+        }
+    }
+
+    /**
+     * 等待阶段结束, 期间响应取消
+     */
+    private static void await(Future<?> future, ProgressIndicator indicator) throws InterruptedException {
+        while (true) {
+            indicator.checkCanceled();
+            try {
+                future.get(100, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException ignored) {
+                // 继续等待
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ProcessCanceledException) {
+                    throw (ProcessCanceledException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * 流水线中传递的一个接口文档
+     */
+    private static class ExportItem {
+
+        private final String folder;
+        private final String name;
+        private final DocView docView;
+        private final FileModels fileModels;
+
+        private ExportItem(String folder, String name, DocView docView, FileModels fileModels) {
+            this.folder = folder;
+            this.name = name;
+            this.docView = docView;
+            this.fileModels = fileModels;
+        }
+
+        /**
+         * 相对导出目录的路径
+         */
+        private String getPath() {
+            return folder + "/" + name + ".md";
+        }
+    }
+
+    /**
+     * 一个文件中接口共用的 Models, 记录还未写入的接口数量, 只在写入线程中修改
+     */
+    private static class FileModels {
+
+        private final DocViewModels models = new DocViewModels(MODELS_NAME + ".md");
+        private int remaining;
+
+        private FileModels(int count) {
+            this.remaining = count;
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.liuzhihang.doc.view.utils;
 
+import com.google.gson.JsonObject;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.extensions.PluginId;
 import com.intellij.openapi.fileChooser.FileChooser;
 import com.intellij.openapi.fileChooser.FileChooserDescriptor;
 import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
 import com.liuzhihang.doc.view.DocViewBundle;
-import com.liuzhihang.doc.view.config.TemplateSettings;
+import com.liuzhihang.doc.view.config.Settings;
 import com.liuzhihang.doc.view.dto.DocView;
 import com.liuzhihang.doc.view.dto.DocViewData;
+import com.liuzhihang.doc.view.dto.DocViewModels;
+import org.jetbrains.annotations.NotNull;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,46 +38,61 @@ import java.util.Map;
  */
 public class ExportUtils {
 
+    private static final PluginId MARKDOWN_PLUGIN_ID = PluginId.getId("org.intellij.plugins.markdown");
+
+    /**
+     * HTML 导出使用 markdown 插件转换, 插件为可选依赖, 未安装或者禁用时不可用
+     * <p>
+     * 不能放在 HtmlSiteWriter 中, 加载 HtmlSiteWriter 时需要 markdown 插件中的类
+     *
+     * @return true 可以导出 HTML
+     */
+    public static boolean isHtmlExportAvailable() {
+        IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(MARKDOWN_PLUGIN_ID);
+        return plugin != null && plugin.isEnabled();
+    }
+
     /**
-     * 批量导出接口文档
+     * 批量导出接口文档, 在后台通过导出流水线生成并写入
      *
-     * @param project          当前项目
-     * @param generatedDocView 批量生成的接口文档
+     * @param project  当前项目
+     * @param fileList 需要导出的文件
      */
-    public static void bathExportMarkdown(Project project, Map<String, Map<String, DocView>> generatedDocView) {
+    public static void bathExportMarkdown(Project project, List<VirtualFile> fileList) {
         // 选择路径
         FileChooserDescriptor fileChooserDescriptor =
                 new FileChooserDescriptor(false, true, false, false, false, false);
         VirtualFile chooser = FileChooser.chooseFile(fileChooserDescriptor, project, null);
         if (chooser != null) {
-            if (chooser.getChildren().length > 0) {
-                NotificationUtils.errorNotify(DocViewBundle.message("notify.export.batch.file.use.empty"), project);
+            File outputDir = new File(chooser.getPath());
+            // 有清单时增量导出, 否则需要确认导出到非空的文件夹
+            if (chooser.getChildren().length > 0 && !ExportManifest.exists(outputDir)
+                    && !DialogUtil.confirm(DocViewBundle.message("notify.export.batch.file.not.empty"),
+                    DocViewBundle.message("notify.export.batch.file.incremental"))) {
                 return;
             }
-            // 文件夹路径
-            StringBuilder path = new StringBuilder(chooser.getPath());
-            // 逐个写入磁盘
-            int success = 0;
-            int fail = 0;
-            for (String folder : generatedDocView.keySet()) {
-                Map<String, DocView> docViewMap = generatedDocView.get(folder);
-                if (new File(path + File.separator + folder).mkdir()) {
-                    path.append(File.separator).append(folder);
+
+            new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+                private ExportPipeline pipeline;
+
+                @Override
+                public void run(@NotNull ProgressIndicator indicator) {
+                    // 清单可能很大, 在后台读取
+                    pipeline = new ExportPipeline(project, ExportManifest.load(outputDir));
+                    pipeline.export(fileList, indicator);
                 }
-                for (Map.Entry<String, DocView> docViewEntry : docViewMap.entrySet()) {
-                    // 将 docView 按照模版转换
-                    DocViewData docViewData = new DocViewData(docViewEntry.getValue());
-                    String markdownText = VelocityUtils.convert(TemplateSettings.getInstance(project).getSpringTemplate(), docViewData);
-                    File file = new File(path + "/" + docViewEntry.getKey() + ".md");
-                    try {
-                        FileUtil.writeToFile(file, markdownText);
-                        success++;
-                    } catch (IOException ioException) {
-                        fail++;
+
+                @Override
+                public void onFinished() {
+                    // 导出完成后刷新文件夹
+                    chooser.refresh(true, true);
+                    if (pipeline != null) {
+                        NotificationUtils.infoNotify(DocViewBundle.message("notify.export.batch.incremental.count",
+                                pipeline.getSuccess(), pipeline.getUnchanged(), pipeline.getDeleted(), pipeline.getFail()), project);
                     }
                 }
-            }
-            NotificationUtils.infoNotify(DocViewBundle.message("notify.export.batch.count", success, fail), project);
+            }.queue();
         }
     }
 
@@ -82,8 +114,8 @@ public class ExportUtils {
                     DocViewBundle.message("notify.export.file.cover"))) {
                 return;
             }
-            try {
-                FileUtil.writeToFile(file, markdownText);
+            try (Writer writer = newWriter(file)) {
+                writer.write(markdownText);
             } catch (IOException ioException) {
                 NotificationUtils.errorNotify(DocViewBundle.message("notify.export.fail"), project);
             }
@@ -94,35 +126,409 @@ public class ExportUtils {
 
     }
 
-    public static void allExportMarkdown(Project project, String className, Map<String, DocView> docMap) {
+    /**
+     * 将类中全部接口导出到一个文件, 文件头部生成目录
+     * <p>
+     * 在后台渲染并写入同目录下的临时文件, 完成后重命名, 不会出现只写了一部分的文件
+     *
+     * @param project   当前项目
+     * @param className 类名, 作为文件名
+     * @param docViews  按目录顺序的文档
+     */
+    public static void allExportMarkdown(Project project, String className, List<DocView> docViews) {
 
         // 选择路径
         FileChooserDescriptor fileChooserDescriptor = FileChooserDescriptorFactory.createSingleFolderDescriptor();
         fileChooserDescriptor.setForcedToUseIdeaFileChooser(true);
         VirtualFile chooser = FileChooser.chooseFile(fileChooserDescriptor, project, null);
-        if (chooser != null) {
-            String path = chooser.getPath();
+        if (chooser == null) {
+            return;
+        }
+        String path = chooser.getPath();
 
-            File file = new File(path + "/" + className + ".md");
+        File file = new File(path + "/" + className + ".md");
 
-            // 文件已存在，选择是否覆盖导出。
-            if (file.exists() && !DialogUtil.confirm(
-                    DocViewBundle.message("notify.export.file.exists"),
-                    DocViewBundle.message("notify.export.file.cover"))) {
-                return;
+        // 文件已存在，选择是否覆盖导出。
+        if (file.exists() && !DialogUtil.confirm(
+                DocViewBundle.message("notify.export.file.exists"),
+                DocViewBundle.message("notify.export.file.cover"))) {
+            return;
+        }
+
+        new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+            private boolean success;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                success = writeAllMarkdown(project, className, docViews, file, indicator);
             }
-            try {
 
-                for (String doc : docMap.keySet()) {
-                    FileUtil.writeToFile(file, DocViewData.buildMarkdownText(project, docMap.get(doc)), true);
+            @Override
+            public void onSuccess() {
+                if (success) {
+                    chooser.refresh(true, false);
+                    NotificationUtils.infoNotify(DocViewBundle.message("notify.export.success"), project);
+                } else {
+                    NotificationUtils.errorNotify(DocViewBundle.message("notify.export.fail"), project);
                 }
+            }
+        }.queue();
+    }
 
-            } catch (IOException ioException) {
-                NotificationUtils.errorNotify(DocViewBundle.message("notify.export.fail"), project);
+    /**
+     * 在后台线程中写入类中全部接口, 取消或者失败时删除临时文件
+     *
+     * @return true 写入成功
+     */
+    private static boolean writeAllMarkdown(Project project, String className, List<DocView> docViews,
+                                            File file, ProgressIndicator indicator) {
+
+        File tempFile = null;
+        boolean moved = false;
+        try {
+            tempFile = File.createTempFile("." + className + "-", ".md.tmp", file.getParentFile());
+
+            try (Writer writer = newWriter(tempFile)) {
+                writer.write("# " + className + "\n\n");
+
+                // 目录
+                int index = 0;
+                for (DocView docView : docViews) {
+                    writer.write("- [" + docView.getName() + "](#" + anchor(++index) + ")\n");
+                }
+
+                // 嵌套对象在文件末尾生成一次
+                DocViewModels models = Boolean.TRUE.equals(Settings.getInstance(project).getExportModels())
+                        ? new DocViewModels("") : null;
+
+                index = 0;
+                for (DocView docView : docViews) {
+                    indicator.checkCanceled();
+                    writer.write("\n\n---\n\n<a id=\"" + anchor(++index) + "\"></a>\n\n");
+                    DocViewData.writeMarkdownText(project, docView, models, writer);
+                }
+
+                if (models != null) {
+                    String modelsText = models.buildModels();
+                    if (!modelsText.isEmpty()) {
+                        writer.write("\n\n---\n\n" + modelsText);
+                    }
+                }
             }
 
+            moveFile(tempFile, file);
+            moved = true;
+        } catch (IOException ioException) {
+            return false;
+        } finally {
+            if (tempFile != null && !moved) {
+                FileUtil.delete(tempFile);
+            }
         }
+        return true;
+    }
 
-        NotificationUtils.infoNotify(DocViewBundle.message("notify.export.success"), project);
+    /**
+     * 批量导出为静态网站, 包含首页和搜索索引
+     *
+     * @param project  当前项目
+     * @param fileList 需要导出的文件
+     */
+    public static void bathExportHtml(Project project, List<VirtualFile> fileList) {
+        if (!isHtmlExportAvailable()) {
+            NotificationUtils.errorNotify(DocViewBundle.message("notify.export.html.unavailable"), project);
+            return;
+        }
+        // 选择路径
+        FileChooserDescriptor fileChooserDescriptor =
+                new FileChooserDescriptor(false, true, false, false, false, false);
+        VirtualFile chooser = FileChooser.chooseFile(fileChooserDescriptor, project, null);
+        if (chooser == null) {
+            return;
+        }
+        // 同名文件会被覆盖
+        if (chooser.getChildren().length > 0 && !DialogUtil.confirm(
+                DocViewBundle.message("notify.export.batch.file.not.empty"),
+                DocViewBundle.message("notify.export.file.cover"))) {
+            return;
+        }
+
+        File outputDir = new File(chooser.getPath());
+
+        new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+            private final ExportPipeline pipeline = new ExportPipeline(project, new HtmlSiteWriter(outputDir, project.getName()));
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                pipeline.export(fileList, indicator);
+            }
+
+            @Override
+            public void onFinished() {
+                chooser.refresh(true, true);
+                NotificationUtils.infoNotify(DocViewBundle.message("notify.export.batch.count",
+                        pipeline.getSuccess(), pipeline.getFail()), project);
+            }
+        }.queue();
+    }
+
+    /**
+     * 批量导出到一个 zip 文件, 目录结构和导出到文件夹时相同
+     *
+     * @param project  当前项目
+     * @param fileList 需要导出的文件
+     */
+    public static void bathExportZip(Project project, List<VirtualFile> fileList) {
+
+        FileSaverDescriptor descriptor = new FileSaverDescriptor(
+                DocViewBundle.message("zip.export.title"), "", "zip");
+        VirtualFileWrapper wrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project)
+                .save((VirtualFile) null, project.getName() + ".zip");
+        if (wrapper == null) {
+            return;
+        }
+        File zipFile = wrapper.getFile();
+        Integer level = Settings.getInstance(project).getZipCompressionLevel();
+
+        new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+            private ExportPipeline pipeline;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    pipeline = new ExportPipeline(project, new ZipExportWriter(zipFile, level));
+                } catch (IOException e) {
+                    NotificationUtils.errorNotify(DocViewBundle.message("notify.export.fail"), project);
+                    return;
+                }
+                pipeline.export(fileList, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (pipeline != null) {
+                    NotificationUtils.infoNotify(DocViewBundle.message("notify.export.batch.count",
+                            pipeline.getSuccess(), pipeline.getFail()), project);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * 批量导出接口文档模型, 文件后缀为 ndjson 或者 jsonl 时每行一条记录, 否则为 JSON 数组
+     *
+     * @param project  当前项目
+     * @param fileList 需要导出的文件
+     */
+    public static void bathExportJson(Project project, List<VirtualFile> fileList) {
+
+        FileSaverDescriptor descriptor = new FileSaverDescriptor(
+                DocViewBundle.message("json.export.title"), "", "ndjson", "jsonl", "json");
+        VirtualFileWrapper wrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project)
+                .save((VirtualFile) null, project.getName() + ".ndjson");
+        if (wrapper == null) {
+            return;
+        }
+        File file = wrapper.getFile();
+        String fileName = file.getName().toLowerCase();
+        boolean ndjson = fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl");
+
+        new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+            private ExportPipeline pipeline;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    pipeline = new ExportPipeline(project, new JsonExportWriter(file, ndjson));
+                } catch (IOException e) {
+                    NotificationUtils.errorNotify(DocViewBundle.message("notify.export.fail"), project);
+                    return;
+                }
+                pipeline.export(fileList, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (pipeline != null) {
+                    NotificationUtils.infoNotify(DocViewBundle.message("notify.export.batch.count",
+                            pipeline.getSuccess(), pipeline.getFail()), project);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * 批量导出为一个 OpenAPI 文档, 在后台逐个文件解析
+     *
+     * @param project  当前项目
+     * @param fileList 需要导出的文件
+     */
+    public static void bathExportOpenApi(Project project, List<VirtualFile> fileList) {
+
+        File file = chooseOpenApiFile(project, project.getName());
+        if (file == null) {
+            return;
+        }
+
+        new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+            private final OpenApiBuilder builder = new OpenApiBuilder(project.getName(), "1.0.0");
+
+            private boolean success;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+
+                indicator.setIndeterminate(false);
+                for (int i = 0; i < fileList.size(); i++) {
+                    indicator.checkCanceled();
+                    VirtualFile virtualFile = fileList.get(i);
+
+                    Map<String, DocView> docViewMap = ReadAction.nonBlocking(() -> ExportPipeline.buildFileDoc(project, virtualFile))
+                            .wrapProgress(indicator)
+                            .executeSynchronously();
+                    if (docViewMap != null) {
+                        docViewMap.values().forEach(builder::add);
+                    }
+
+                    indicator.setFraction((double) (i + 1) / fileList.size());
+                    indicator.setText2(DocViewBundle.message("task.export.progress", i + 1, fileList.size()));
+                }
+
+                success = writeOpenApi(file, builder);
+            }
+
+            @Override
+            public void onSuccess() {
+                notifyOpenApi(project, builder, success);
+            }
+        }.queue();
+    }
+
+    /**
+     * 导出为 OpenAPI 文档, 文件后缀为 yaml 或者 yml 时输出 YAML, 否则输出 JSON
+     *
+     * @param project  当前项目
+     * @param name     文档标题, 默认文件名
+     * @param docViews 接口文档
+     */
+    public static void exportOpenApi(Project project, String name, Collection<DocView> docViews) {
+
+        File file = chooseOpenApiFile(project, name);
+        if (file == null) {
+            return;
+        }
+
+        new Task.Backgroundable(project, DocViewBundle.message("task.export.title"), true) {
+
+            private final OpenApiBuilder builder = new OpenApiBuilder(name, "1.0.0");
+
+            private boolean success;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                docViews.forEach(builder::add);
+                success = writeOpenApi(file, builder);
+            }
+
+            @Override
+            public void onSuccess() {
+                notifyOpenApi(project, builder, success);
+            }
+        }.queue();
+    }
+
+    private static File chooseOpenApiFile(Project project, String name) {
+
+        FileSaverDescriptor descriptor = new FileSaverDescriptor(
+                DocViewBundle.message("openapi.export.title"), "", "json", "yaml", "yml");
+
+        // 已存在时保存对话框中会确认是否覆盖
+        VirtualFileWrapper wrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project)
+                .save((VirtualFile) null, name + ".json");
+
+        return wrapper == null ? null : wrapper.getFile();
+    }
+
+    /**
+     * 在后台线程中写入, 先写入临时文件再替换
+     *
+     * @return true 写入成功
+     */
+    private static boolean writeOpenApi(File file, OpenApiBuilder builder) {
+
+        String fileName = file.getName().toLowerCase();
+        boolean yaml = fileName.endsWith(".yaml") || fileName.endsWith(".yml");
+        JsonObject root = builder.build();
+
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile("." + file.getName() + "-", ".tmp", file.getParentFile());
+            try (Writer writer = newWriter(tempFile)) {
+                OpenApiBuilder.write(root, writer, yaml);
+            }
+            moveFile(tempFile, file);
+        } catch (IOException ioException) {
+            if (tempFile != null) {
+                FileUtil.delete(tempFile);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static void notifyOpenApi(Project project, OpenApiBuilder builder, boolean success) {
+
+        if (!success) {
+            NotificationUtils.errorNotify(DocViewBundle.message("notify.export.openapi.fail"), project);
+            return;
+        }
+
+        NotificationUtils.infoNotify(DocViewBundle.message("notify.export.openapi.success"), project);
+
+        List<String> conflictList = builder.getConflictList();
+        if (!conflictList.isEmpty()) {
+            NotificationUtils.warnNotify(DocViewBundle.message("notify.export.openapi.conflict",
+                    String.join("<br/>", conflictList)), project);
+        }
+    }
+
+    /**
+     * 目录中的锚点, 接口名称可能重复或者包含中文, 使用序号
+     */
+    private static String anchor(int index) {
+        return "doc-view-" + index;
+    }
+
+    /**
+     * 替换目标文件, 文件系统支持时原子替换
+     */
+    static void moveFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 带缓冲的文件输出, 父目录不存在时创建
+     *
+     * @param file   文件
+     * @return writer
+     * @throws IOException 创建失败
+     */
+    public static Writer newWriter(File file) throws IOException {
+
+        FileUtil.createParentDirs(file);
+
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
     }
 }
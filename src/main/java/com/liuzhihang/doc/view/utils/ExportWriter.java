@@ -0,0 +1,135 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.liuzhihang.doc.view.dto.DocView;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * 导出流水线的写入目标
+ * <p>
+ * write 和 finish 只在写入阶段的单个线程中调用, 文档在 write 中按模版直接渲染到输出, 不在内存中保留完整的 markdown
+ *
+ * @author liuzhihang
+ * @date 2021/4/13 19:20
+ */
+public interface ExportWriter extends Closeable {
+
+    /**
+     * 是否需要按模版生成 markdown, 只导出文档模型时不需要
+     *
+     * @return true 需要
+     */
+    default boolean isMarkdown() {
+        return true;
+    }
+
+    /**
+     * 写入一个文档
+     *
+     * @param path     相对路径
+     * @param docView  接口文档
+     * @param markdown 按模版渲染 markdown, 不需要 markdown 时可以不调用
+     * @return true 写入, false 内容未变动跳过
+     * @throws IOException 写入失败
+     */
+    boolean write(@NotNull String path, @NotNull DocView docView, @NotNull Markdown markdown) throws IOException;
+
+    /**
+     * 本次导出的源文件, 源文件解析完成后在解析线程中调用, 可能并发
+     *
+     * @param folder 源文件对应的文件夹
+     */
+    default void source(@NotNull String folder) {
+    }
+
+    /**
+     * 本次未能生成的文档
+     *
+     * @param path 相对路径
+     */
+    default void keep(@NotNull String path) {
+    }
+
+    /**
+     * 是否记录源文件的指纹, 用于下次导出时跳过没有变动的源文件
+     *
+     * @return true 记录
+     */
+    default boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * 上次导出该源文件时依赖的文件, 在解析线程中调用, 可能并发
+     *
+     * @param folder 源文件对应的文件夹
+     * @return 依赖文件的 url, 上次没有导出时为 null
+     */
+    @Nullable
+    default Collection<String> getDependencies(@NotNull String folder) {
+        return null;
+    }
+
+    /**
+     * 源文件的指纹和上次导出时相同, 保留上次导出的全部文件, 在解析线程中调用, 可能并发
+     *
+     * @param folder      源文件对应的文件夹
+     * @param fingerprint 源文件的指纹
+     * @return true 已保留, 不需要再解析
+     */
+    default boolean keepSource(@NotNull String folder, @NotNull String fingerprint) {
+        return false;
+    }
+
+    /**
+     * 记录本次导出的源文件的指纹, 在解析线程中调用, 可能并发
+     *
+     * @param folder       源文件对应的文件夹
+     * @param fingerprint  源文件的指纹
+     * @param dependencies 依赖文件的 url
+     */
+    default void fingerprint(@NotNull String folder, @NotNull String fingerprint, @NotNull Collection<String> dependencies) {
+    }
+
+    /**
+     * 全部写入完成, 取消时不会调用
+     *
+     * @throws IOException 写入失败
+     */
+    void finish() throws IOException;
+
+    /**
+     * 释放资源, 未调用 finish 时丢弃未完成的输出
+     */
+    @Override
+    default void close() {
+    }
+
+    default int getUnchanged() {
+        return 0;
+    }
+
+    default int getDeleted() {
+        return 0;
+    }
+
+    /**
+     * 文档的 markdown 内容, 写入时才渲染
+     */
+    @FunctionalInterface
+    interface Markdown {
+
+        /**
+         * 渲染到 writer 中, 不关闭 writer
+         *
+         * @param writer 输出
+         * @throws IOException 写入失败
+         */
+        void writeTo(@NotNull Writer writer) throws IOException;
+    }
+}
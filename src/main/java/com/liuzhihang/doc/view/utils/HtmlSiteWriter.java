@@ -0,0 +1,268 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.util.io.StreamUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.liuzhihang.doc.view.dto.DocView;
+import org.intellij.markdown.ast.ASTNode;
+import org.intellij.markdown.flavours.MarkdownFlavourDescriptor;
+import org.intellij.markdown.flavours.gfm.GFMFlavourDescriptor;
+import org.intellij.markdown.html.HtmlGenerator;
+import org.intellij.markdown.parser.MarkdownParser;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 导出为静态网站
+ * <p>
+ * 每个接口在导出时转换为一个 html 页面, 全部完成后生成首页和搜索索引, 浏览和搜索都在浏览器中完成, 不需要服务端.
+ * 搜索索引为 词 -> 接口序号 的 JSON, 包装为 js 文件, 直接打开本地文件时也可以加载
+ *
+ * @author liuzhihang
+ * @date 2021/4/14 10:30
+ */
+public class HtmlSiteWriter implements ExportWriter {
+
+    private static final String CSS_NAME = "doc-view.css";
+    private static final String INDEX_NAME = "index.html";
+    private static final String SEARCH_INDEX_NAME = "search-index.js";
+
+    /**
+     * 首页中的搜索, 每个词按前缀匹配索引中的词, 多个词同时命中才显示
+     */
+    private static final String SEARCH_SCRIPT = ""
+            + "(function () {\n"
+            + "  var index = window.DOC_VIEW_SEARCH_INDEX || {tokens: {}};\n"
+            + "  var keys = Object.keys(index.tokens);\n"
+            + "  var items = document.querySelectorAll('li[data-id]');\n"
+            + "  function tokenize(text) {\n"
+            + "    var tokens = [];\n"
+            + "    text.toLowerCase().split(/[^\\p{L}\\p{N}]+/u).forEach(function (word) {\n"
+            + "      if (!word) return;\n"
+            + "      if (/\\p{Script=Han}/u.test(word)) tokens.push.apply(tokens, Array.from(word));\n"
+            + "      else tokens.push(word);\n"
+            + "    });\n"
+            + "    return tokens;\n"
+            + "  }\n"
+            + "  function match(token) {\n"
+            + "    var ids = {};\n"
+            + "    keys.forEach(function (key) {\n"
+            + "      if (key.indexOf(token) === 0) index.tokens[key].forEach(function (id) { ids[id] = true; });\n"
+            + "    });\n"
+            + "    return ids;\n"
+            + "  }\n"
+            + "  document.getElementById('search').addEventListener('input', function (e) {\n"
+            + "    var result = null;\n"
+            + "    tokenize(e.target.value).forEach(function (token) {\n"
+            + "      var ids = match(token);\n"
+            + "      if (result === null) { result = ids; return; }\n"
+            + "      Object.keys(result).forEach(function (id) { if (!ids[id]) delete result[id]; });\n"
+            + "    });\n"
+            + "    items.forEach(function (item) {\n"
+            + "      item.style.display = result === null || result[item.dataset.id] ? '' : 'none';\n"
+            + "    });\n"
+            + "  });\n"
+            + "})();\n";
+
+    private static final Pattern MARKDOWN_LINK = Pattern.compile("href=\"([^\"/:#]+)\\.md#");
+
+    private static final MarkdownFlavourDescriptor FLAVOUR = new GFMFlavourDescriptor();
+
+    private final File outputDir;
+    private final String title;
+
+    /**
+     * 已写入的页面, 按写入顺序
+     */
+    private final List<Page> pageList = new ArrayList<>();
+
+    public HtmlSiteWriter(@NotNull File outputDir, @NotNull String title) {
+        this.outputDir = outputDir;
+        this.title = title;
+    }
+
+    @Override
+    public boolean write(@NotNull String path, @NotNull DocView docView, @NotNull Markdown markdown) throws IOException {
+
+        // 转换 html 需要完整的 markdown, 只保留当前一个文档
+        StringWriter markdownText = new StringWriter();
+        markdown.writeTo(markdownText);
+
+        String url = StringUtil.trimEnd(path, ".md") + ".html";
+        // 页面在子目录中时, 样式和首页使用相对路径
+        String root = StringUtil.repeat("../", StringUtil.countChars(url, '/'));
+
+        try (Writer writer = ExportUtils.newWriter(new File(outputDir, url))) {
+            writeHead(writer, docView.getName(), root + CSS_NAME);
+            writer.write("<p><a href=\"" + root + INDEX_NAME + "\">" + escape(title) + "</a></p>\n");
+            writer.write(toHtml(markdownText.toString()));
+            writer.write("\n</body>\n</html>\n");
+        }
+
+        pageList.add(new Page(docView, url));
+        return true;
+    }
+
+    @Override
+    public void finish() throws IOException {
+
+        try (InputStream css = HtmlSiteWriter.class.getResourceAsStream("/default.css");
+             Writer writer = ExportUtils.newWriter(new File(outputDir, CSS_NAME))) {
+            if (css != null) {
+                writer.write(StreamUtil.readText(css, StandardCharsets.UTF_8));
+            }
+        }
+
+        writeSearchIndex();
+        writeIndex();
+    }
+
+    /**
+     * markdown 转换为 html
+     */
+    @NotNull
+    private static String toHtml(@NotNull String markdownText) {
+        ASTNode tree = new MarkdownParser(FLAVOUR).buildMarkdownTreeFromString(markdownText);
+        String html = new HtmlGenerator(markdownText, tree, FLAVOUR, false).generateHtml();
+        // 同一文件夹下 markdown 之间的链接, 例如 Models.md#model-user
+        return MARKDOWN_LINK.matcher(html).replaceAll("href=\"$1.html#");
+    }
+
+    /**
+     * 首页, 按文件分组列出全部接口, 搜索时只显示命中的接口
+     */
+    private void writeIndex() throws IOException {
+
+        Map<String, List<Integer>> folderMap = new TreeMap<>();
+        for (int i = 0; i < pageList.size(); i++) {
+            String url = pageList.get(i).url;
+            int index = url.lastIndexOf('/');
+            folderMap.computeIfAbsent(index == -1 ? "" : url.substring(0, index), k -> new ArrayList<>()).add(i);
+        }
+
+        try (Writer writer = ExportUtils.newWriter(new File(outputDir, INDEX_NAME))) {
+            writeHead(writer, title, CSS_NAME);
+            writer.write("<h1>" + escape(title) + "</h1>\n");
+            writer.write("<p><input id=\"search\" type=\"search\" placeholder=\"Search\" autofocus></p>\n");
+
+            for (Map.Entry<String, List<Integer>> entry : folderMap.entrySet()) {
+                writer.write("<h2>" + escape(entry.getKey()) + "</h2>\n<ul>\n");
+                for (Integer id : entry.getValue()) {
+                    Page page = pageList.get(id);
+                    writer.write("<li data-id=\"" + id + "\"><a href=\"" + escape(page.url) + "\">" + escape(page.name) + "</a>");
+                    if (StringUtil.isNotEmpty(page.path)) {
+                        writer.write(" <code>" + escape(StringUtil.notNullize(page.method) + " " + page.path) + "</code>");
+                    }
+                    writer.write("</li>\n");
+                }
+                writer.write("</ul>\n");
+            }
+
+            writer.write("<script src=\"" + SEARCH_INDEX_NAME + "\"></script>\n");
+            writer.write("<script>\n" + SEARCH_SCRIPT + "</script>\n");
+            writer.write("</body>\n</html>\n");
+        }
+    }
+
+    /**
+     * 搜索索引 {"tokens": {"词": [接口序号]}}
+     */
+    private void writeSearchIndex() throws IOException {
+
+        Map<String, Set<Integer>> tokenMap = new TreeMap<>();
+        for (int i = 0; i < pageList.size(); i++) {
+            Page page = pageList.get(i);
+            for (String text : new String[]{page.name, page.path, page.method, page.className, page.desc}) {
+                for (String token : tokenize(text)) {
+                    tokenMap.computeIfAbsent(token, k -> new TreeSet<>()).add(i);
+                }
+            }
+        }
+
+        try (Writer writer = ExportUtils.newWriter(new File(outputDir, SEARCH_INDEX_NAME))) {
+            writer.write("window.DOC_VIEW_SEARCH_INDEX = ");
+
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            jsonWriter.beginObject().name("tokens").beginObject();
+            for (Map.Entry<String, Set<Integer>> entry : tokenMap.entrySet()) {
+                jsonWriter.name(entry.getKey()).beginArray();
+                for (Integer id : entry.getValue()) {
+                    jsonWriter.value(id);
+                }
+                jsonWriter.endArray();
+            }
+            jsonWriter.endObject().endObject();
+            jsonWriter.flush();
+
+            writer.write(";\n");
+        }
+    }
+
+    /**
+     * 分词, 按非字母数字拆分并转小写, 中文没有分隔符, 每个字单独作为一个词
+     * <p>
+     * 浏览器中搜索时使用相同的规则
+     */
+    @NotNull
+    private static Set<String> tokenize(String text) {
+
+        Set<String> tokenSet = new LinkedHashSet<>();
+        if (StringUtil.isEmpty(text)) {
+            return tokenSet;
+        }
+
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN)) {
+                word.codePoints().forEach(c -> tokenSet.add(new String(Character.toChars(c))));
+            } else {
+                tokenSet.add(word);
+            }
+        }
+        return tokenSet;
+    }
+
+    private static void writeHead(Writer writer, String title, String cssPath) throws IOException {
+        writer.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n");
+        writer.write("<title>" + escape(title) + "</title>\n");
+        writer.write("<link rel=\"stylesheet\" href=\"" + cssPath + "\">\n");
+        writer.write("</head>\n<body>\n");
+    }
+
+    @NotNull
+    private static String escape(String text) {
+        return StringUtil.escapeXmlEntities(StringUtil.notNullize(text));
+    }
+
+    /**
+     * 首页和索引需要的接口信息, 不持有文档
+     */
+    private static class Page {
+
+        private final String name;
+        private final String path;
+        private final String method;
+        private final String className;
+        private final String desc;
+        private final String url;
+
+        private Page(DocView docView, String url) {
+            this.name = docView.getName();
+            this.path = docView.getPath();
+            this.method = docView.getMethod();
+            this.className = docView.getClassName();
+            this.desc = docView.getDesc();
+            this.url = url;
+        }
+    }
+}
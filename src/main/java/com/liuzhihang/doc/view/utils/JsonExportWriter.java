@@ -0,0 +1,113 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiElement;
+import com.liuzhihang.doc.view.dto.DocView;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 将接口文档模型 (DocView/Body/Header/Param) 导出为 JSON 或者 NDJSON
+ * <p>
+ * 每个接口一条记录, 边生成边写入, 内存不随接口数量增长. NDJSON 每行一条记录, 可以逐行解析;
+ * JSON 为一个数组. 先写入同目录下的临时文件, 完成后重命名, 取消时删除临时文件
+ *
+ * @author liuzhihang
+ * @date 2021/4/14 16:20
+ */
+public class JsonExportWriter implements ExportWriter {
+
+    /**
+     * 不输出 PSI 元素
+     */
+    private static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .addSerializationExclusionStrategy(new ExclusionStrategy() {
+                @Override
+                public boolean shouldSkipField(FieldAttributes f) {
+                    return PsiElement.class.isAssignableFrom(f.getDeclaredClass());
+                }
+
+                @Override
+                public boolean shouldSkipClass(Class<?> clazz) {
+                    return false;
+                }
+            })
+            .create();
+
+    private final File file;
+    private final File tempFile;
+    private final boolean ndjson;
+    private final Writer writer;
+    private final JsonWriter jsonWriter;
+
+    private boolean finished;
+
+    /**
+     * @param file   导出的文件
+     * @param ndjson true 每行一条记录, false 一个 JSON 数组
+     * @throws IOException 创建失败
+     */
+    public JsonExportWriter(@NotNull File file, boolean ndjson) throws IOException {
+        this.file = file;
+        this.ndjson = ndjson;
+        FileUtil.createParentDirs(file);
+        this.tempFile = File.createTempFile("." + file.getName() + "-", ".tmp", file.getParentFile());
+        this.writer = ExportUtils.newWriter(tempFile);
+        this.jsonWriter = new JsonWriter(writer);
+        // 允许写入多个顶层记录
+        this.jsonWriter.setLenient(true);
+
+        if (!ndjson) {
+            jsonWriter.beginArray();
+        }
+    }
+
+    @Override
+    public boolean isMarkdown() {
+        return false;
+    }
+
+    @Override
+    public boolean write(@NotNull String path, @NotNull DocView docView, @NotNull Markdown markdown) throws IOException {
+
+        GSON.toJson(docView, DocView.class, jsonWriter);
+
+        if (ndjson) {
+            jsonWriter.flush();
+            writer.write('\n');
+        }
+        return true;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!ndjson) {
+            jsonWriter.endArray();
+        }
+        jsonWriter.close();
+        ExportUtils.moveFile(tempFile, file);
+        finished = true;
+    }
+
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        try {
+            jsonWriter.close();
+        } catch (IOException ignored) {
+            // 丢弃未完成的文件
+        }
+        FileUtil.delete(tempFile);
+    }
+}
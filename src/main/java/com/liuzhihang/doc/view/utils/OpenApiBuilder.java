@@ -0,0 +1,559 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.util.text.StringUtil;
+import com.liuzhihang.doc.view.dto.Body;
+import com.liuzhihang.doc.view.dto.DocView;
+import com.liuzhihang.doc.view.dto.Header;
+import com.liuzhihang.doc.view.dto.Param;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 根据 DocView 生成 OpenAPI 3 文档
+ * <p>
+ * 请求体、返回值以及嵌套的对象按类全名只生成一次, 放在 components/schemas 中, 使用 $ref 引用.
+ * 路径和请求方式相同的接口只保留第一个, 其他的记录为冲突
+ *
+ * @author liuzhihang
+ * @date 2021/4/13 14:30
+ */
+public class OpenApiBuilder {
+
+    private static final String OPENAPI_VERSION = "3.0.3";
+
+    private static final String SCHEMA_REF_PREFIX = "#/components/schemas/";
+
+    private static final Set<String> HTTP_METHODS = new HashSet<>(Arrays.asList(
+            "get", "put", "post", "delete", "options", "head", "patch", "trace"));
+
+    private static final Set<String> COLLECTION_TYPES = new HashSet<>(Arrays.asList(
+            "Collection", "Iterable", "List", "ArrayList", "LinkedList", "Set", "HashSet", "LinkedHashSet", "TreeSet"));
+
+    private final String title;
+
+    private final String version;
+
+    /**
+     * 路径 -> 路径下的请求方式
+     */
+    private final Map<String, JsonObject> pathMap = new TreeMap<>();
+
+    /**
+     * 组件名称 -> 对象结构
+     */
+    private final Map<String, JsonObject> schemaMap = new TreeMap<>();
+
+    /**
+     * 类全名 -> 组件名称, 简单类名重复时追加序号
+     */
+    private final Map<String, String> componentNameMap = new HashMap<>();
+
+    /**
+     * 已经使用的 operationId
+     */
+    private final Set<String> operationIdSet = new HashSet<>();
+
+    /**
+     * 路径和请求方式重复的接口
+     */
+    private final List<String> conflictList = new ArrayList<>();
+
+    public OpenApiBuilder(String title, String version) {
+        this.title = title;
+        this.version = version;
+    }
+
+    /**
+     * 添加一个接口
+     *
+     * @param docView 接口文档
+     */
+    public synchronized void add(@NotNull DocView docView) {
+
+        String path = buildPath(docView);
+        String method = buildMethod(docView);
+
+        JsonObject pathItem = pathMap.computeIfAbsent(path, k -> new JsonObject());
+        if (pathItem.has(method)) {
+            conflictList.add(method.toUpperCase() + " " + path + " " + docView.getClassName() + "#" + docView.getMethodName());
+            return;
+        }
+
+        JsonObject operation = new JsonObject();
+
+        JsonArray tags = new JsonArray();
+        tags.add(docView.getClassName());
+        operation.add("tags", tags);
+        operation.addProperty("summary", docView.getName());
+        operation.addProperty("operationId", buildOperationId(docView, method, path));
+        if (StringUtils.isNotBlank(docView.getDesc())) {
+            operation.addProperty("description", docView.getDesc());
+        }
+
+        JsonArray parameters = buildParameters(docView);
+        if (parameters.size() > 0) {
+            operation.add("parameters", parameters);
+        }
+
+        if (docView.getReqBodyList() != null && !docView.getReqBodyList().isEmpty()) {
+            JsonObject requestBody = new JsonObject();
+            requestBody.add("content", buildContent(bodySchema(docView.getReqBodyList(),
+                    docView.getReqBodyClassName(), docView.getReqExample())));
+            operation.add("requestBody", requestBody);
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("description", "OK");
+        if (docView.getRespBodyList() != null && !docView.getRespBodyList().isEmpty()) {
+            response.add("content", buildContent(bodySchema(docView.getRespBodyList(),
+                    docView.getRespBodyClassName(), docView.getRespExample())));
+        }
+        JsonObject responses = new JsonObject();
+        responses.add("200", response);
+        operation.add("responses", responses);
+
+        pathItem.add(method, operation);
+    }
+
+    /**
+     * 路径和请求方式重复而没有生成的接口
+     *
+     * @return 请求方式 路径 类名#方法名
+     */
+    @NotNull
+    public synchronized List<String> getConflictList() {
+        return new ArrayList<>(conflictList);
+    }
+
+    /**
+     * 生成完整的 OpenAPI 文档
+     *
+     * @return OpenAPI 文档
+     */
+    @NotNull
+    public synchronized JsonObject build() {
+
+        JsonObject root = new JsonObject();
+        root.addProperty("openapi", OPENAPI_VERSION);
+
+        JsonObject info = new JsonObject();
+        info.addProperty("title", title);
+        info.addProperty("version", version);
+        root.add("info", info);
+
+        JsonObject paths = new JsonObject();
+        pathMap.forEach(paths::add);
+        root.add("paths", paths);
+
+        JsonObject schemas = new JsonObject();
+        schemaMap.forEach(schemas::add);
+        JsonObject components = new JsonObject();
+        components.add("schemas", schemas);
+        root.add("components", components);
+
+        return root;
+    }
+
+    /**
+     * 写入 JSON 或者 YAML
+     *
+     * @param root   OpenAPI 文档
+     * @param writer 输出
+     * @param yaml   true YAML, false JSON
+     * @throws IOException 写入失败
+     */
+    public static void write(@NotNull JsonObject root, @NotNull Writer writer, boolean yaml) throws IOException {
+
+        if (yaml) {
+            writeYamlObject(root, writer, 0, true);
+            return;
+        }
+
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setIndent("  ");
+        new Gson().toJson(root, jsonWriter);
+        jsonWriter.flush();
+    }
+
+    @NotNull
+    private static String buildPath(@NotNull DocView docView) {
+
+        String path = StringUtils.defaultString(docView.getPath());
+
+        // Dubbo 接口 Class#method
+        path = path.replace("#", "/");
+
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    @NotNull
+    private static String buildMethod(@NotNull DocView docView) {
+
+        String method = StringUtils.defaultString(docView.getMethod()).toLowerCase();
+
+        // Dubbo 等非 HTTP 接口按照 post 处理
+        return HTTP_METHODS.contains(method) ? method : "post";
+    }
+
+    /**
+     * 类名 + 方法名, 重载等重复时追加序号
+     */
+    @NotNull
+    private String buildOperationId(@NotNull DocView docView, @NotNull String method, @NotNull String path) {
+
+        String operationId;
+        if (StringUtils.isNotBlank(docView.getMethodName())) {
+            operationId = StringUtils.defaultString(docView.getClassName()) + "_" + docView.getMethodName();
+        } else {
+            operationId = method + path;
+        }
+        operationId = operationId.replaceAll("[^A-Za-z0-9_]+", "_");
+
+        String uniqueId = operationId;
+        int index = 1;
+        while (!operationIdSet.add(uniqueId)) {
+            uniqueId = operationId + "_" + index++;
+        }
+        return uniqueId;
+    }
+
+    @NotNull
+    private JsonArray buildParameters(@NotNull DocView docView) {
+
+        JsonArray parameters = new JsonArray();
+
+        if (docView.getHeaderList() != null) {
+            for (Header header : docView.getHeaderList()) {
+                // OpenAPI 中 Content-Type 由 content 指定
+                if ("Content-Type".equalsIgnoreCase(header.getName())) {
+                    continue;
+                }
+                parameters.add(buildParameter(header.getName(), "header", header.getRequired(), header.getDesc(), primitiveSchema("String")));
+            }
+        }
+
+        if (docView.getReqParamList() != null) {
+            for (Param param : docView.getReqParamList()) {
+                // 路径参数必须是 required
+                if (param.isPathVariable()) {
+                    parameters.add(buildParameter(param.getName(), "path", true, param.getDesc(), typeSchema(param.getType())));
+                } else {
+                    parameters.add(buildParameter(param.getName(), "query", param.getRequired(), param.getDesc(), typeSchema(param.getType())));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @NotNull
+    private static JsonObject buildParameter(String name, String in, Boolean required, String desc, JsonObject schema) {
+
+        JsonObject parameter = new JsonObject();
+        parameter.addProperty("name", name);
+        parameter.addProperty("in", in);
+        parameter.addProperty("required", Boolean.TRUE.equals(required));
+        if (StringUtils.isNotBlank(desc)) {
+            parameter.addProperty("description", desc);
+        }
+        parameter.add("schema", schema);
+        return parameter;
+    }
+
+    @NotNull
+    private static JsonObject buildContent(@NotNull JsonObject schema) {
+
+        JsonObject mediaType = new JsonObject();
+        mediaType.add("schema", schema);
+
+        JsonObject content = new JsonObject();
+        content.add("application/json", mediaType);
+        return content;
+    }
+
+    /**
+     * 请求体或者返回值的结构, 有类型时引用组件, 示例为数组时外层是数组
+     */
+    @NotNull
+    private JsonObject bodySchema(@NotNull List<Body> bodyList, String className, String example) {
+
+        JsonObject schema;
+        // 基本类型的返回值没有名称
+        if (bodyList.size() == 1 && bodyList.get(0).getName() == null) {
+            schema = typeSchema(bodyList.get(0).getType());
+        } else if (className != null) {
+            Body root = new Body();
+            root.setClassName(className);
+            root.setBodyList(bodyList);
+            schema = refSchema(root);
+        } else {
+            schema = objectSchema(bodyList);
+        }
+
+        if (example != null && example.trim().startsWith("[")) {
+            return arraySchema(schema);
+        }
+        return schema;
+    }
+
+    @NotNull
+    private JsonObject objectSchema(@NotNull List<Body> bodyList) {
+
+        JsonObject schema = new JsonObject();
+        schema.addProperty("type", "object");
+
+        JsonObject properties = new JsonObject();
+        JsonArray required = new JsonArray();
+
+        for (Body body : bodyList) {
+            if (isRefPlaceholder(body) || body.getName() == null) {
+                continue;
+            }
+            properties.add(body.getName(), propertySchema(body));
+            if (Boolean.TRUE.equals(body.getRequired())) {
+                required.add(body.getName());
+            }
+        }
+
+        schema.add("properties", properties);
+        if (required.size() > 0) {
+            schema.add("required", required);
+        }
+        return schema;
+    }
+
+    @NotNull
+    private JsonObject propertySchema(@NotNull Body body) {
+
+        JsonObject schema;
+        if (body.getClassName() == null) {
+            schema = typeSchema(body.getType());
+        } else {
+            JsonObject ref = refSchema(body);
+            String type = StringUtils.defaultString(body.getType());
+            String rawType = rawType(type);
+            if (type.endsWith("[]") || COLLECTION_TYPES.contains(rawType)) {
+                schema = arraySchema(ref);
+            } else if (rawType.endsWith("Map")) {
+                schema = new JsonObject();
+                schema.addProperty("type", "object");
+                schema.add("additionalProperties", ref);
+            } else {
+                schema = ref;
+            }
+        }
+
+        if (StringUtils.isNotBlank(body.getDesc()) && !schema.has("$ref")) {
+            schema.addProperty("description", body.getDesc());
+        }
+        return schema;
+    }
+
+    /**
+     * 引用嵌套对象, 对象结构只生成一次
+     * <p>
+     * 循环引用或者超过深度时字段不完整, 之后遇到更完整的字段时替换
+     */
+    @NotNull
+    private JsonObject refSchema(@NotNull Body body) {
+
+        String componentName = componentName(body.getClassName());
+        List<Body> bodyList = body.getBodyList() == null ? Collections.emptyList() : body.getBodyList();
+
+        JsonObject existing = schemaMap.get(componentName);
+        int existingSize = existing == null ? -1 : existing.getAsJsonObject("properties").size();
+
+        if (bodyList.size() > existingSize && !(bodyList.size() == 1 && isRefPlaceholder(bodyList.get(0)))) {
+            // 先占位, 嵌套的字段引用自身时不会重复生成
+            if (existing == null) {
+                schemaMap.put(componentName, objectSchema(Collections.emptyList()));
+            }
+            schemaMap.put(componentName, objectSchema(bodyList));
+        } else if (existing == null) {
+            schemaMap.put(componentName, objectSchema(Collections.emptyList()));
+        }
+
+        JsonObject ref = new JsonObject();
+        ref.addProperty("$ref", SCHEMA_REF_PREFIX + componentName);
+        return ref;
+    }
+
+    /**
+     * 简单类名作为组件名称, 泛型参数使用 _ 连接, 如 Result<User> 为 Result_User
+     */
+    @NotNull
+    private String componentName(@NotNull String className) {
+
+        return componentNameMap.computeIfAbsent(className, k -> {
+            String simpleName = StringUtils.strip(className.replaceAll("[\\w$]+\\.", "")
+                    .replaceAll("\\W+", "_"), "_");
+            String name = simpleName;
+            int index = 1;
+            while (componentNameMap.containsValue(name)) {
+                name = simpleName + "_" + index++;
+            }
+            return name;
+        });
+    }
+
+    @NotNull
+    private static JsonObject arraySchema(@NotNull JsonObject items) {
+        JsonObject schema = new JsonObject();
+        schema.addProperty("type", "array");
+        schema.add("items", items);
+        return schema;
+    }
+
+    /**
+     * 按类型名称生成结构, 用于没有嵌套对象的字段
+     */
+    @NotNull
+    private static JsonObject typeSchema(String type) {
+
+        if (type == null) {
+            return primitiveSchema("Object");
+        }
+
+        if (type.endsWith("[]")) {
+            return arraySchema(typeSchema(type.substring(0, type.length() - 2)));
+        }
+
+        String rawType = rawType(type);
+        if (COLLECTION_TYPES.contains(rawType)) {
+            int begin = type.indexOf('<');
+            String elementType = begin == -1 ? "Object" : type.substring(begin + 1, type.lastIndexOf('>'));
+            return arraySchema(typeSchema(elementType));
+        }
+
+        return primitiveSchema(rawType);
+    }
+
+    @NotNull
+    private static JsonObject primitiveSchema(@NotNull String type) {
+
+        JsonObject schema = new JsonObject();
+
+        switch (type) {
+            case "int":
+            case "Integer":
+            case "short":
+            case "Short":
+            case "byte":
+            case "Byte":
+                schema.addProperty("type", "integer");
+                schema.addProperty("format", "int32");
+                break;
+            case "long":
+            case "Long":
+            case "BigInteger":
+                schema.addProperty("type", "integer");
+                schema.addProperty("format", "int64");
+                break;
+            case "float":
+            case "Float":
+                schema.addProperty("type", "number");
+                schema.addProperty("format", "float");
+                break;
+            case "double":
+            case "Double":
+            case "BigDecimal":
+                schema.addProperty("type", "number");
+                schema.addProperty("format", "double");
+                break;
+            case "boolean":
+            case "Boolean":
+                schema.addProperty("type", "boolean");
+                break;
+            case "String":
+            case "char":
+            case "Character":
+                schema.addProperty("type", "string");
+                break;
+            case "Date":
+            case "LocalDateTime":
+            case "Timestamp":
+                schema.addProperty("type", "string");
+                schema.addProperty("format", "date-time");
+                break;
+            case "LocalDate":
+                schema.addProperty("type", "string");
+                schema.addProperty("format", "date");
+                break;
+            default:
+                schema.addProperty("type", "object");
+        }
+        return schema;
+    }
+
+    @NotNull
+    private static String rawType(@NotNull String type) {
+        int index = type.indexOf('<');
+        return (index == -1 ? type : type.substring(0, index)).trim();
+    }
+
+    private static boolean isRefPlaceholder(@NotNull Body body) {
+        return body.getName() != null && body.getName().startsWith(ParamContext.REF_PREFIX);
+    }
+
+    /**
+     * 输出 YAML, 字符串都使用双引号, 与 JSON 的转义规则一致
+     */
+    private static void writeYamlObject(@NotNull JsonObject object, @NotNull Writer writer, int indent,
+                                        boolean padFirstLine) throws IOException {
+
+        boolean first = true;
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            if (!first || padFirstLine) {
+                writer.write(StringUtil.repeat(" ", indent));
+            }
+            first = false;
+
+            writer.write(yamlScalar(new JsonPrimitive(entry.getKey())));
+            writer.write(":");
+            writeYamlValue(entry.getValue(), writer, indent);
+        }
+    }
+
+    private static void writeYamlValue(@NotNull JsonElement value, @NotNull Writer writer, int indent) throws IOException {
+
+        if (value.isJsonObject() && value.getAsJsonObject().size() > 0) {
+            writer.write("\n");
+            writeYamlObject(value.getAsJsonObject(), writer, indent + 2, true);
+        } else if (value.isJsonArray() && value.getAsJsonArray().size() > 0) {
+            writer.write("\n");
+            for (JsonElement element : value.getAsJsonArray()) {
+                writer.write(StringUtil.repeat(" ", indent + 2));
+                writer.write("-");
+                if (element.isJsonObject() && element.getAsJsonObject().size() > 0) {
+                    writer.write(" ");
+                    writeYamlObject(element.getAsJsonObject(), writer, indent + 4, false);
+                } else {
+                    writer.write(" ");
+                    writer.write(yamlScalar(element));
+                    writer.write("\n");
+                }
+            }
+        } else {
+            writer.write(" ");
+            writer.write(yamlScalar(value));
+            writer.write("\n");
+        }
+    }
+
+    @NotNull
+    private static String yamlScalar(@NotNull JsonElement element) {
+        if (element.isJsonObject()) {
+            return "{}";
+        }
+        if (element.isJsonArray()) {
+            return "[]";
+        }
+        // 数字、布尔、null 以及带引号的字符串
+        return element.toString();
+    }
+}
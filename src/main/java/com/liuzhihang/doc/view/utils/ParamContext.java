@@ -0,0 +1,238 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.psi.PsiClass;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.dto.TypeSchema;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * 一次参数解析的上下文
+ * <p>
+ * 记录当前正在展开的类路径, 用于循环引用检测, 并限制解析深度和字段数量.
+ * 同时记录每个展开的类的深度、字段数量和引用, 判断嵌套类的结果是否与所在路径无关, 无关时可以缓存
+ *
+ * @author liuzhihang
+ * @date 2021/4/7 10:12
+ */
+public class ParamContext {
+
+    /**
+     * 循环引用时的占位前缀
+     */
+    public static final String REF_PREFIX = "$ref: ";
+
+    /**
+     * 超过最大字段数量时的占位名称
+     */
+    public static final String TRUNCATED_NAME = "...";
+
+    private final int maxDepth;
+
+    private final int maxFieldCount;
+
+    /**
+     * 当前正在展开的类, 下标为所在的深度
+     */
+    private final List<Scope> scopeList = new ArrayList<>();
+
+    private int fieldCount;
+
+    public ParamContext(@NotNull Settings settings) {
+        this.maxDepth = settings.getMaxDepth();
+        this.maxFieldCount = settings.getMaxFieldCount();
+    }
+
+    /**
+     * 是否循环引用, 即该类已经在当前路径中展开
+     *
+     * @param psiClass 待展开的类
+     * @return true 循环引用
+     */
+    public boolean isCycle(@NotNull PsiClass psiClass) {
+        return indexOf(psiClass) >= 0;
+    }
+
+    /**
+     * 记录循环引用, 引用了路径中更上层的类时, 当前类的结果与路径有关
+     *
+     * @param psiClass 引用的类
+     */
+    public void addRef(@NotNull PsiClass psiClass) {
+        Scope current = currentScope();
+        current.refIndex = Math.min(current.refIndex, indexOf(psiClass));
+    }
+
+    /**
+     * 是否已达到最大深度, 达到时当前路径上的类都没有完整展开
+     *
+     * @return true 不再展开
+     */
+    public boolean isTooDeep() {
+        if (scopeList.size() >= maxDepth) {
+            currentScope().truncated = true;
+            return true;
+        }
+        return false;
+    }
+
+    public void enter(@NotNull PsiClass psiClass) {
+        scopeList.add(new Scope(psiClass, scopeList.size()));
+    }
+
+    /**
+     * 结束展开当前类, 结果合并到上一层
+     *
+     * @return 当前类的展开记录
+     */
+    @NotNull
+    public Scope exit() {
+        Scope scope = scopeList.remove(scopeList.size() - 1);
+        if (!scopeList.isEmpty()) {
+            currentScope().merge(scope.depth, scope.fieldCount, scope.classNames, scope.refIndex, scope.truncated);
+        }
+        return scope;
+    }
+
+    /**
+     * 记录解析一个字段
+     *
+     * @return false 已超过最大字段数量
+     */
+    public boolean addField() {
+        if (++fieldCount <= maxFieldCount) {
+            currentScope().fieldCount++;
+            return true;
+        }
+        currentScope().truncated = true;
+        return false;
+    }
+
+    /**
+     * 缓存的嵌套类在当前位置是否可以直接使用
+     * <p>
+     * 展开后不超过最大深度和字段数量, 并且其中的类都不在当前路径中
+     *
+     * @param schema 缓存的嵌套类
+     * @return true 可以使用
+     */
+    public boolean canReuse(@NotNull TypeSchema schema) {
+        if (scopeList.size() + schema.getDepth() > maxDepth || fieldCount + schema.getFieldCount() > maxFieldCount) {
+            return false;
+        }
+        for (Scope scope : scopeList) {
+            if (schema.getClassNames().contains(scope.className)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 使用缓存的嵌套类, 记录到当前类中
+     *
+     * @param schema 缓存的嵌套类
+     */
+    public void reuse(@NotNull TypeSchema schema) {
+        fieldCount += schema.getFieldCount();
+        currentScope().merge(schema.getDepth(), schema.getFieldCount(), schema.getClassNames(), Integer.MAX_VALUE, false);
+    }
+
+    @NotNull
+    private Scope currentScope() {
+        return scopeList.get(scopeList.size() - 1);
+    }
+
+    private int indexOf(@NotNull PsiClass psiClass) {
+        for (int i = 0; i < scopeList.size(); i++) {
+            if (scopeList.get(i).psiClass.equals(psiClass)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 循环引用时的占位名称
+     *
+     * @param psiClass 类
+     * @return $ref: ClassName
+     */
+    @NotNull
+    public static String refName(@NotNull PsiClass psiClass) {
+        return REF_PREFIX + psiClass.getName();
+    }
+
+    /**
+     * 一个类的展开记录
+     */
+    public static class Scope {
+
+        private final PsiClass psiClass;
+        private final String className;
+        private final int index;
+
+        /**
+         * 展开的层数, 只有自身时为 1
+         */
+        private int depth = 1;
+
+        private int fieldCount;
+
+        /**
+         * 展开的全部类
+         */
+        private final Set<String> classNames = new HashSet<>();
+
+        /**
+         * 引用的最上层的类所在的深度
+         */
+        private int refIndex = Integer.MAX_VALUE;
+
+        /**
+         * 因为深度或者字段数量限制没有完整展开
+         */
+        private boolean truncated;
+
+        private Scope(@NotNull PsiClass psiClass, int index) {
+            this.psiClass = psiClass;
+            this.className = psiClass.getQualifiedName();
+            this.index = index;
+            // 匿名类等没有全名的类无法判断是否在路径中, 不缓存
+            this.truncated = className == null;
+            if (className != null) {
+                this.classNames.add(className);
+            }
+        }
+
+        private void merge(int childDepth, int childFieldCount, Set<String> childClassNames, int childRefIndex, boolean childTruncated) {
+            depth = Math.max(depth, childDepth + 1);
+            fieldCount += childFieldCount;
+            classNames.addAll(childClassNames);
+            refIndex = Math.min(refIndex, childRefIndex);
+            truncated |= childTruncated;
+        }
+
+        /**
+         * 完整展开, 并且只引用了自身及其中的类, 结果与所在路径无关
+         *
+         * @return true 可以缓存
+         */
+        public boolean isComplete() {
+            return !truncated && refIndex >= index;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getFieldCount() {
+            return fieldCount;
+        }
+
+        public Set<String> getClassNames() {
+            return classNames;
+        }
+    }
+}
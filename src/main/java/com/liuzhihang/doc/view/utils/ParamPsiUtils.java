@@ -2,22 +2,28 @@ package com.liuzhihang.doc.view.utils;
 
 import com.intellij.codeInsight.AnnotationUtil;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
 import com.intellij.psi.javadoc.PsiDocComment;
 import com.intellij.psi.javadoc.PsiDocTag;
 import com.intellij.psi.util.InheritanceUtil;
 import com.intellij.psi.util.PsiTypesUtil;
 import com.intellij.psi.util.PsiUtil;
+import com.liuzhihang.doc.view.DocViewBundle;
 import com.liuzhihang.doc.view.config.Settings;
 import com.liuzhihang.doc.view.config.TagsSettings;
 import com.liuzhihang.doc.view.constant.FieldTypeConstant;
 import com.liuzhihang.doc.view.dto.Body;
+import com.liuzhihang.doc.view.dto.TypeSchema;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
 /**
  * 参数处理工具
+ * <p>
+ * 对类的字段只遍历一次, 同时生成参数表格使用的 Body 列表和示例 Json 使用的字段默认值
  *
  * @author liuzhihang
  * @date 2020/11/17 15:15
@@ -25,16 +31,196 @@ import java.util.*;
 public class ParamPsiUtils {
 
 
+    /**
+     * 获取类的结构, 优先从缓存中获取
+     *
+     * @param settings   设置
+     * @param psiClass   类
+     * @param genericArr 泛型参数
+     * @return 类型结构
+     */
+    @NotNull
+    public static TypeSchema getTypeSchema(@NotNull Settings settings, @NotNull PsiClass psiClass, PsiType[] genericArr) {
+
+        String key = TypeSchemaCache.buildKey(psiClass, genericArr);
+        if (key == null) {
+            return buildTypeSchema(settings, psiClass, genericArr);
+        }
+
+        // 从根节点开始的解析结果, 嵌套类在展开时按是否与所在路径有关单独缓存
+        return TypeSchemaCache.getSchemaCache(psiClass.getProject())
+                .computeIfAbsent(key, k -> buildTypeSchema(settings, psiClass, genericArr));
+    }
+
     @NotNull
-    public static Body buildBodyParam(@NotNull Settings settings, PsiField field, PsiType[] genericArr) {
+    private static TypeSchema buildTypeSchema(@NotNull Settings settings, @NotNull PsiClass psiClass, PsiType[] genericArr) {
+
+        List<Body> bodyList = new ArrayList<>();
+        Map<String, Object> fieldMap = new LinkedHashMap<>();
+
+        visitClass(new ParamContext(settings), settings, psiClass, genericArr, bodyList, fieldMap);
+
+        return new TypeSchema(bodyList, fieldMap);
+    }
+
+    /**
+     * 构建类的字段列表
+     *
+     * @param settings   设置
+     * @param psiClass   类
+     * @param genericArr 泛型参数
+     * @return 字段列表
+     */
+    @NotNull
+    public static List<Body> buildBodyList(Settings settings, @NotNull PsiClass psiClass, PsiType[] genericArr) {
+        return getTypeSchema(settings, psiClass, genericArr).copyBodyList();
+    }
+
+    /**
+     * 获取字段及默认值
+     *
+     * @param psiClass   类
+     * @param genericArr 泛型参数
+     * @return 字段名 -> 默认值
+     */
+    @NotNull
+    public static Map<String, Object> getFieldsAndDefaultValue(PsiClass psiClass, PsiType[] genericArr) {
+
+        if (psiClass == null) {
+            return new LinkedHashMap<>();
+        }
+
+        Settings settings = Settings.getInstance(psiClass.getProject());
+
+        return getTypeSchema(settings, psiClass, genericArr).copyFieldMap();
+    }
+
+    /**
+     * 遍历类的字段, 结果写入 bodyList 和 fieldMap
+     *
+     * @param context    解析上下文
+     * @param settings   设置
+     * @param psiClass   类
+     * @param genericArr 泛型参数
+     * @param bodyList   字段列表
+     * @param fieldMap   字段默认值
+     * @return 类的展开记录, 没有展开时为 null
+     */
+    @Nullable
+    private static ParamContext.Scope visitClass(@NotNull ParamContext context, @NotNull Settings settings,
+                                   @NotNull PsiClass psiClass, PsiType[] genericArr,
+                                   @NotNull List<Body> bodyList, @NotNull Map<String, Object> fieldMap) {
+
+        if (psiClass.isEnum() || psiClass.isInterface() || psiClass.isAnnotationType()) {
+            return null;
+        }
+
+        context.enter(psiClass);
+
+        for (PsiField field : psiClass.getAllFields()) {
+
+            if (settings.getExcludeFieldNames().contains(field.getName())) {
+                continue;
+            }
+            // 排除掉被 static 修饰的字段
+            if (CustomPsiUtils.hasModifierProperty(field, PsiModifier.STATIC)) {
+                continue;
+            }
+
+            if (!context.addField()) {
+                // 标记字段被截断, 文档中可以看到不完整
+                bodyList.add(buildTruncatedBody(settings));
+                break;
+            }
+
+            visitField(context, settings, field, genericArr, bodyList, fieldMap);
+        }
+
+        return context.exit();
+    }
 
+    /**
+     * 超过最大字段数量时的占位
+     *
+     * @param settings 设置
+     * @return 占位字段
+     */
+    @NotNull
+    private static Body buildTruncatedBody(@NotNull Settings settings) {
         Body body = new Body();
-        body.setRequired(isRequired(field));
-        body.setName(field.getName());
-        body.setPsiElement(field);
+        body.setRequired(false);
+        body.setName(ParamContext.TRUNCATED_NAME);
+        body.setType("");
+        body.setDesc(DocViewBundle.message("param.truncated", settings.getMaxFieldCount()));
+        return body;
+    }
+
+    /**
+     * 嵌套对象, 循环引用时返回 $ref 占位, 超过深度时不再展开
+     * <p>
+     * 与所在路径无关的结果按类缓存, 多个接口共用的对象只展开一次
+     *
+     * @param context  解析上下文
+     * @param settings 设置
+     * @param psiClass 嵌套的类
+     * @param body     字段, 嵌套对象的字段放入其 bodyList
+     * @return 嵌套对象的默认值
+     */
+    @NotNull
+    private static Object visitChildClass(@NotNull ParamContext context, @NotNull Settings settings,
+                                          @NotNull PsiClass psiClass, @NotNull Body body) {
+
+        body.setClassName(psiClass.getQualifiedName());
+        List<Body> bodyList = body.getBodyList();
+
+        if (context.isCycle(psiClass)) {
+            context.addRef(psiClass);
+            Body refBody = new Body();
+            refBody.setRequired(false);
+            refBody.setName(ParamContext.refName(psiClass));
+            refBody.setType(psiClass.getName());
+            bodyList.add(refBody);
+            return ParamContext.refName(psiClass);
+        }
+
+        if (context.isTooDeep()) {
+            return new LinkedHashMap<>();
+        }
+
+        String key = TypeSchemaCache.buildKey(psiClass, null);
+        Map<String, TypeSchema> nestedCache = key == null ? null : TypeSchemaCache.getNestedSchemaCache(psiClass.getProject());
+
+        TypeSchema cached = nestedCache == null ? null : nestedCache.get(key);
+        if (cached != null && context.canReuse(cached)) {
+            context.reuse(cached);
+            bodyList.addAll(cached.copyBodyList());
+            return cached.copyFieldMap();
+        }
+
+        int start = bodyList.size();
+        Map<String, Object> fieldMap = new LinkedHashMap<>();
+        ParamContext.Scope scope = visitClass(context, settings, psiClass, null, bodyList, fieldMap);
+
+        if (nestedCache != null && scope != null && scope.isComplete()) {
+            // 当前的结果还会被上层使用, 缓存一份复制
+            TypeSchema schema = new TypeSchema(bodyList.subList(start, bodyList.size()), fieldMap,
+                    scope.getDepth(), scope.getFieldCount(), scope.getClassNames());
+            nestedCache.putIfAbsent(key, schema.copy());
+        }
+        return fieldMap;
+    }
+
+    private static void visitField(@NotNull ParamContext context, @NotNull Settings settings,
+                                   @NotNull PsiField field, PsiType[] genericArr,
+                                   @NotNull List<Body> bodyList, @NotNull Map<String, Object> fieldMap) {
 
         PsiType type = field.getType();
+        String name = field.getName();
 
+        Body body = new Body();
+        body.setRequired(isRequired(field));
+        body.setName(name);
+        body.setPsiElement(field);
         body.setType(type.getPresentableText());
 
         PsiDocComment docComment = field.getDocComment();
@@ -45,39 +231,58 @@ public class ParamPsiUtils {
             body.setDesc(CustomPsiCommentUtils.getComment(docComment));
         }
 
-        if (type instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
-            return body;
+        bodyList.add(body);
+
+        List<Body> childList = new ArrayList<>();
+        body.setBodyList(childList);
+
+        if (type instanceof PsiPrimitiveType) {
+            // 基本类型
+            fieldMap.put(name, PsiTypesUtil.getDefaultValue(type));
+        } else if (FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
+            // 指定的类型
+            fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(type.getPresentableText()));
+        } else if (containsAnnotation(field.getAnnotations())) {
+            // 判断注解 javax.annotation.Resource   org.springframework.beans.factory.annotation.Autowired
+            fieldMap.put(name, "");
+        } else if (type instanceof PsiArrayType) {
+            //array type
+            List<Object> list = new ArrayList<>();
+            PsiType deepType = type.getDeepComponentType();
+            String deepTypeName = deepType.getPresentableText();
+            if (deepType instanceof PsiPrimitiveType) {
+                list.add(PsiTypesUtil.getDefaultValue(deepType));
+            } else if (FieldTypeConstant.FIELD_TYPE.containsKey(deepTypeName)) {
+                list.add(FieldTypeConstant.FIELD_TYPE.get(deepTypeName));
+            } else {
+                PsiClass deepClass = PsiUtil.resolveClassInType(deepType);
+                if (deepClass != null) {
+                    list.add(visitChildClass(context, settings, deepClass, body));
+                }
+            }
+            fieldMap.put(name, list);
         } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_COLLECTION)) {
             // List Set or HashSet
-            List<Body> list = new ArrayList<>();
+            List<Object> list = new ArrayList<>();
             PsiType iterableType = PsiUtil.extractIterableTypeParameter(type, false);
             PsiClass iterableClass = PsiUtil.resolveClassInClassTypeOnly(iterableType);
             if (iterableClass != null) {
-                for (PsiField psiField : iterableClass.getAllFields()) {
-                    if (!settings.getExcludeFieldNames().contains(psiField.getName())
-                            && !CustomPsiUtils.hasModifierProperty(psiField, PsiModifier.STATIC)) {
-
-                        Body requestParam = buildBodyParam(settings, psiField, null);
-                        list.add(requestParam);
-                    }
+                String classTypeName = iterableClass.getName();
+                if (FieldTypeConstant.FIELD_TYPE.containsKey(classTypeName)) {
+                    list.add(FieldTypeConstant.FIELD_TYPE.get(classTypeName));
+                } else {
+                    list.add(visitChildClass(context, settings, iterableClass, body));
                 }
             }
-            body.setBodyList(list);
+            fieldMap.put(name, list);
         } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_MAP)) {
-            // HashMap or Map
-            List<Body> list = new ArrayList<>();
+            // HashMap or Map, 示例中不展开, 表格中展开 value 的字段
             PsiType matValueType = PsiUtil.substituteTypeParameter(type, CommonClassNames.JAVA_UTIL_MAP, 1, false);
-            PsiClass iterableClass = PsiUtil.resolveClassInClassTypeOnly(matValueType);
-            if (iterableClass != null) {
-                for (PsiField psiField : iterableClass.getAllFields()) {
-                    if (!settings.getExcludeFieldNames().contains(psiField.getName())
-                            && !CustomPsiUtils.hasModifierProperty(psiField, PsiModifier.STATIC)) {
-                        Body requestParam = buildBodyParam(settings, psiField, null);
-                        list.add(requestParam);
-                    }
-                }
+            PsiClass valueClass = PsiUtil.resolveClassInClassTypeOnly(matValueType);
+            if (valueClass != null && !FieldTypeConstant.FIELD_TYPE.containsKey(valueClass.getName())) {
+                visitChildClass(context, settings, valueClass, body);
             }
-            body.setBodyList(list);
+            fieldMap.put(name, new HashMap<>(4));
         } else {
             PsiType psiType;
             if (type.getPresentableText().equals("T") && genericArr != null && genericArr.length >= 1) {
@@ -92,24 +297,18 @@ public class ParamPsiUtils {
 
             if (FieldTypeConstant.FIELD_TYPE.containsKey(psiType.getPresentableText())) {
                 body.setType(psiType.getPresentableText());
-                return body;
+                fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(psiType.getPresentableText()));
+                return;
             }
 
             PsiClass psiClass = PsiUtil.resolveClassInClassTypeOnly(psiType);
-            List<Body> list = new ArrayList<>();
-            if (psiClass != null && !psiClass.isEnum() && !psiClass.isInterface() && !psiClass.isAnnotationType()) {
-                for (PsiField psiField : psiClass.getAllFields()) {
-                    if (!settings.getExcludeFieldNames().contains(psiField.getName())
-                            && !CustomPsiUtils.hasModifierProperty(psiField, PsiModifier.STATIC)) {
-                        Body requestParam = buildBodyParam(settings, psiField, null);
-                        list.add(requestParam);
-                    }
-                }
+            if (psiClass == null || psiClass.isEnum() || psiClass.isInterface() || psiClass.isAnnotationType()) {
+                // enum or interface
+                fieldMap.put(name, "");
+            } else {
+                fieldMap.put(name, visitChildClass(context, settings, psiClass, body));
             }
-            body.setBodyList(list);
         }
-
-        return body;
     }
 
     /**
@@ -141,93 +340,6 @@ public class ParamPsiUtils {
         return annotated || requiredTag != null;
     }
 
-
-    @NotNull
-    public static Map<String, Object> getFieldsAndDefaultValue(PsiClass psiClass, PsiType[] genericArr) {
-
-        Map<String, Object> fieldMap = new LinkedHashMap<>();
-        // Map<String, Object> commentFieldMap = new LinkedHashMap<>();
-
-        if (psiClass != null && !psiClass.isEnum() && !psiClass.isInterface() && !psiClass.isAnnotationType()) {
-            for (PsiField field : psiClass.getAllFields()) {
-
-                if (field.getModifierList() != null && field.getModifierList().hasModifierProperty(PsiModifier.STATIC)) {
-                    continue;
-                }
-
-
-                PsiType type = field.getType();
-                String name = field.getName();
-                // 判断注解 javax.annotation.Resource   org.springframework.beans.factory.annotation.Autowired
-                PsiAnnotation[] annotations = field.getAnnotations();
-                if (annotations.length > 0 && containsAnnotation(annotations)) {
-                    fieldMap.put(name, "");
-                } else if (type instanceof PsiPrimitiveType) {
-                    // 基本类型
-                    fieldMap.put(name, PsiTypesUtil.getDefaultValue(type));
-                } else {
-                    //reference Type
-                    String fieldTypeName = type.getPresentableText();
-                    // 指定的类型
-                    if (FieldTypeConstant.FIELD_TYPE.containsKey(fieldTypeName)) {
-                        fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(fieldTypeName));
-                    } else if (type instanceof PsiArrayType) {
-                        //array type
-                        List<Object> list = new ArrayList<>();
-                        PsiType deepType = type.getDeepComponentType();
-                        String deepTypeName = deepType.getPresentableText();
-                        if (deepType instanceof PsiPrimitiveType) {
-                            list.add(PsiTypesUtil.getDefaultValue(deepType));
-                        } else if (FieldTypeConstant.FIELD_TYPE.containsKey(deepTypeName)) {
-                            list.add(FieldTypeConstant.FIELD_TYPE.get(deepTypeName));
-                        } else {
-                            list.add(getFieldsAndDefaultValue(PsiUtil.resolveClassInType(deepType), null));
-                        }
-                        fieldMap.put(name, list);
-                    } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_COLLECTION)) {
-                        // List Set or HashSet
-                        List<Object> list = new ArrayList<>();
-                        PsiType iterableType = PsiUtil.extractIterableTypeParameter(type, false);
-                        PsiClass iterableClass = PsiUtil.resolveClassInClassTypeOnly(iterableType);
-                        if (iterableClass != null) {
-                            String classTypeName = iterableClass.getName();
-                            if (FieldTypeConstant.FIELD_TYPE.containsKey(classTypeName)) {
-                                list.add(FieldTypeConstant.FIELD_TYPE.get(classTypeName));
-                            } else {
-                                list.add(getFieldsAndDefaultValue(iterableClass, null));
-                            }
-                        }
-                        fieldMap.put(name, list);
-                    } else if (InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_MAP)) {
-                        // HashMap or Map
-                        fieldMap.put(name, new HashMap<>(4));
-                    } else if (psiClass.isEnum() || psiClass.isInterface() || psiClass.isAnnotationType()) {
-                        // enum or interface
-                        fieldMap.put(name, "");
-                    } else {
-
-                        if (type.getPresentableText().equals("T") && genericArr != null && genericArr.length >= 1) {
-                            // T 泛型
-                            type = genericArr[0];
-                        } else if (type.getPresentableText().equals("K") && genericArr != null && genericArr.length >= 2) {
-                            // K 泛型
-                            type = genericArr[1];
-                        }
-
-                        if (FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
-                            fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(type.getPresentableText()));
-                        } else {
-                            fieldMap.put(name, getFieldsAndDefaultValue(PsiUtil.resolveClassInType(type), null));
-                        }
-
-
-                    }
-                }
-            }
-        }
-        return fieldMap;
-    }
-
     /**
      * 是否包含指定的注解
      *
@@ -244,117 +356,89 @@ public class ParamPsiUtils {
     }
 
 
-    @NotNull
-    public static List<Body> buildRespBody(Settings settings, PsiType returnType) {
-
-        List<Body> list = new ArrayList<>();
-        if (returnType instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(returnType.getPresentableText())) {
-            Body body = new Body();
-            body.setRequired(false);
-            body.setName(null);
-            body.setType(returnType.getPresentableText());
-            list.add(body);
-        } else if (returnType instanceof PsiClassType) {
-
-            PsiClassType psiClassType = (PsiClassType) returnType;
-
-            // 返回值可能是 Result<T> Result<T, K> 泛型的
-
-            PsiClass psiClass = PsiUtil.resolveClassInType(returnType);
-            if (psiClass != null) {
-                if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_COLLECTION)) {
-                    PsiType[] parameters = psiClassType.getParameters();
-                    if (parameters.length != 0) {
-                        PsiType psiType = parameters[0];
-
-                        if (psiType instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(psiType.getPresentableText())) {
-                            return list;
-                        }
-
-                        // 泛型的类型
-                        PsiClass genericsPsiClass = PsiUtil.resolveClassInClassTypeOnly(psiType);
+    /**
+     * 请求体或者返回值的类型, 用于在文档中按类型引用
+     *
+     * @param type 参数或者返回值类型
+     * @return 包含泛型参数的类型, 集合时为元素的类型, 基本类型等没有字段的类型返回 null
+     */
+    @Nullable
+    public static String getBodyClassName(PsiType type) {
 
-                        if (genericsPsiClass != null) {
-                            return buildBodyList(settings, genericsPsiClass, null);
-                        }
-                    }
-                } else {
-                    return buildBodyList(settings, psiClass, psiClassType.getParameters());
-                }
-            }
-        } else {
-            // 其他类型
+        if (type instanceof PsiClassType && InheritanceUtil.isInheritor(type, CommonClassNames.JAVA_UTIL_COLLECTION)) {
+            type = PsiUtil.extractIterableTypeParameter(type, false);
         }
-        return list;
-    }
-
-    @NotNull
-    public static List<Body> buildBodyList(Settings settings, @NotNull PsiClass psiClass, PsiType[] o) {
-
-        List<Body> list = new ArrayList<>();
 
+        if (!(type instanceof PsiClassType) || FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
+            return null;
+        }
 
-        for (PsiField field : psiClass.getAllFields()) {
-
-            if (settings.getExcludeFieldNames().contains(field.getName())) {
-                continue;
-            }
-            // 排除掉被 static 修饰的字段
-            if (CustomPsiUtils.hasModifierProperty(field, PsiModifier.STATIC)) {
-                continue;
-            }
-
-            Body requestParam = ParamPsiUtils.buildBodyParam(settings, field, o);
-            list.add(requestParam);
+        PsiClass psiClass = PsiUtil.resolveClassInClassTypeOnly(type);
+        if (psiClass == null || psiClass.isEnum() || psiClass.isInterface()) {
+            return null;
         }
-        return list;
+        return type.getCanonicalText();
     }
 
-
+    /**
+     * 一次解析返回值, 同时生成返回参数和返回示例
+     *
+     * @param settings   设置
+     * @param returnType 返回值类型
+     * @return first 返回参数, second 返回示例
+     */
     @NotNull
-    public static String getRespBodyJson(Settings settings, PsiType returnType) {
-
+    public static Pair<List<Body>, String> buildRespBodyAndJson(Settings settings, PsiType returnType) {
 
+        List<Body> list = new ArrayList<>();
         if (returnType instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(returnType.getPresentableText())) {
-            return "";
+            Body body = new Body();
+            body.setRequired(false);
+            body.setName(null);
+            body.setType(returnType.getPresentableText());
+            list.add(body);
+            return Pair.create(list, "");
         } else if (returnType instanceof PsiClassType) {
 
             PsiClassType psiClassType = (PsiClassType) returnType;
 
+            // 返回值可能是 Result<T> Result<T, K> 泛型的
             PsiClass psiClass = PsiUtil.resolveClassInType(returnType);
             if (psiClass != null) {
-
                 if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_COLLECTION)) {
                     // 集合类型
                     PsiType[] parameters = psiClassType.getParameters();
 
                     if (parameters.length == 0) {
-                        return "[]";
+                        return Pair.create(list, "[]");
                     }
 
                     PsiType psiType = parameters[0];
 
                     if (psiType instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(psiType.getPresentableText())) {
-                        return "[]";
+                        return Pair.create(list, "[]");
                     }
 
-                    PsiClass iterableClass = PsiUtil.resolveClassInClassTypeOnly(psiType);
-                    Map<String, Object> fieldMap = ParamPsiUtils.getFieldsAndDefaultValue(iterableClass, null);
+                    // 泛型的类型
+                    PsiClass genericsPsiClass = PsiUtil.resolveClassInClassTypeOnly(psiType);
 
-                    Object[] objectArr = {fieldMap};
+                    if (genericsPsiClass == null) {
+                        Object[] objectArr = {new LinkedHashMap<>()};
+                        return Pair.create(list, GsonFormatUtil.gsonFormat(objectArr));
+                    }
 
-                    return GsonFormatUtil.gsonFormat(objectArr);
+                    TypeSchema schema = getTypeSchema(settings, genericsPsiClass, null);
+                    Object[] objectArr = {schema.getFieldMap()};
+                    return Pair.create(schema.copyBodyList(), GsonFormatUtil.gsonFormat(objectArr));
                 } else {
-                    Map<String, Object> fieldMap = ParamPsiUtils.getFieldsAndDefaultValue(psiClass, psiClassType.getParameters());
-
-                    return GsonFormatUtil.gsonFormat(fieldMap);
+                    TypeSchema schema = getTypeSchema(settings, psiClass, psiClassType.getParameters());
+                    return Pair.create(schema.copyBodyList(), GsonFormatUtil.gsonFormat(schema.getFieldMap()));
                 }
             }
         } else {
             // 其他类型
         }
-
-        return "";
+        return Pair.create(list, "");
     }
 
 }
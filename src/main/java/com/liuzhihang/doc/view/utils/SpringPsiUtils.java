@@ -2,7 +2,11 @@ package com.liuzhihang.doc.view.utils;
 
 import com.intellij.codeInsight.AnnotationUtil;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTypesUtil;
 import com.intellij.psi.util.PsiUtil;
 import com.liuzhihang.doc.view.config.Settings;
@@ -10,10 +14,11 @@ import com.liuzhihang.doc.view.constant.AnnotationConstant;
 import com.liuzhihang.doc.view.constant.FieldTypeConstant;
 import com.liuzhihang.doc.view.dto.Body;
 import com.liuzhihang.doc.view.dto.Header;
+import com.liuzhihang.doc.view.dto.MappingInfo;
 import com.liuzhihang.doc.view.dto.Param;
+import com.liuzhihang.doc.view.dto.TypeSchema;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
@@ -23,34 +28,102 @@ import java.util.*;
  */
 public class SpringPsiUtils {
 
+    /**
+     * 请求方式注解 -> 请求方式, 按优先级排列, 同时有多个时取靠前的
+     */
+    private static final Map<String, String> MAPPING_METHOD = new LinkedHashMap<String, String>() {{
+        put(AnnotationConstant.GET_MAPPING, "GET");
+        put(AnnotationConstant.POST_MAPPING, "POST");
+        put(AnnotationConstant.PUT_MAPPING, "PUT");
+        put(AnnotationConstant.DELETE_MAPPING, "DELETE");
+        put(AnnotationConstant.PATCH_MAPPING, "PATCH");
+    }};
+
+    /**
+     * 获取方法的 Mapping 信息, PSI 变动后重新解析
+     *
+     * @param psiMethod
+     * @return
+     */
     @NotNull
-    public static String getMethod(PsiMethod psiMethod) {
+    public static MappingInfo getMappingInfo(@NotNull PsiMethod psiMethod) {
+        return CachedValuesManager.getCachedValue(psiMethod, () -> CachedValueProvider.Result
+                .create(buildMappingInfo(psiMethod), PsiModificationTracker.MODIFICATION_COUNT));
+    }
 
-        String method;
-
-        if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.GET_MAPPING, 0)) {
-            method = "GET";
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.POST_MAPPING, 0)) {
-            method = "POST";
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.PUT_MAPPING, 0)) {
-            method = "PUT";
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.DELETE_MAPPING, 0)) {
-            method = "DELETE";
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.PATCH_MAPPING, 0)) {
-            method = "PATCH";
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.REQUEST_MAPPING, 0)) {
-            PsiAnnotation annotation = AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.REQUEST_MAPPING);
-            if (annotation == null) {
-                method = "GET";
-            } else {
-                String value = AnnotationUtil.getStringAttributeValue(annotation, "method");
-                method = value == null ? "GET" : value;
+    /**
+     * 遍历一次方法上的注解, 解析出请求方式和路径
+     * <p>
+     * 优先使用 GetMapping 等指定请求方式的注解, 有多个时按 GET > POST > PUT > DELETE > PATCH 的顺序, 与注解的顺序无关; 其次是 RequestMapping
+     *
+     * @param psiMethod
+     * @return
+     */
+    @NotNull
+    private static MappingInfo buildMappingInfo(@NotNull PsiMethod psiMethod) {
+
+        Set<String> annotationNames = new HashSet<>();
+        Map<String, PsiAnnotation> mappingAnnotations = new HashMap<>();
+        PsiAnnotation requestMappingAnnotation = null;
+
+        for (PsiAnnotation annotation : psiMethod.getModifierList().getAnnotations()) {
+
+            String qualifiedName = annotation.getQualifiedName();
+            if (qualifiedName == null) {
+                continue;
+            }
+            annotationNames.add(qualifiedName);
+
+            if (MAPPING_METHOD.containsKey(qualifiedName)) {
+                mappingAnnotations.putIfAbsent(qualifiedName, annotation);
+            } else if (AnnotationConstant.REQUEST_MAPPING.equals(qualifiedName)) {
+                requestMappingAnnotation = annotation;
+            }
+        }
+
+        List<String> methods = new ArrayList<>();
+
+        PsiAnnotation annotation = null;
+        for (Map.Entry<String, String> entry : MAPPING_METHOD.entrySet()) {
+            annotation = mappingAnnotations.get(entry.getKey());
+            if (annotation != null) {
+                methods.add(entry.getValue());
+                break;
             }
-        } else {
-            method = "GET";
+        }
+        if (annotation == null) {
+            annotation = requestMappingAnnotation;
+            if (annotation != null) {
+                // RequestMethod.POST 只取枚举名
+                for (String value : getAttributeValues(annotation, "method")) {
+                    methods.add(value.substring(value.lastIndexOf('.') + 1));
+                }
+            }
+        }
+
+        if (methods.isEmpty()) {
+            methods.add("GET");
         }
 
-        return method;
+        List<String> paths = new ArrayList<>();
+        List<String> consumes = new ArrayList<>();
+        List<String> produces = new ArrayList<>();
+
+        if (annotation != null) {
+            paths = getPaths(annotation);
+            consumes = getAttributeValues(annotation, "consumes");
+            produces = getAttributeValues(annotation, "produces");
+        }
+
+        PsiClass containingClass = psiMethod.getContainingClass();
+        String basePath = containingClass == null ? "" : getBasePath(containingClass);
+
+        return new MappingInfo(annotationNames, methods, paths, consumes, produces, basePath);
+    }
+
+    @NotNull
+    public static String getMethod(PsiMethod psiMethod) {
+        return getMappingInfo(psiMethod).getMethods().get(0);
     }
 
     /**
@@ -63,7 +136,9 @@ public class SpringPsiUtils {
     @NotNull
     public static String getPath(PsiClass psiClass, @NotNull PsiMethod psiMethod) {
 
-        String basePath = getBasePath(psiClass);
+        MappingInfo mappingInfo = getMappingInfo(psiMethod);
+
+        String basePath = psiClass == psiMethod.getContainingClass() ? mappingInfo.getBasePath() : getBasePath(psiClass);
         String methodPath = getMethodPath(psiMethod);
 
         if (StringUtils.isBlank(basePath)) {
@@ -88,42 +163,63 @@ public class SpringPsiUtils {
         // controller 路径
         PsiAnnotation annotation = AnnotationUtil.findAnnotation(psiClass, AnnotationConstant.REQUEST_MAPPING);
 
-        return getPath(annotation);
+        if (annotation == null) {
+            return "";
+        }
+        List<String> paths = getPaths(annotation);
+        return paths.isEmpty() ? "" : paths.get(0);
     }
 
 
+    /**
+     * 注解上的路径, value 和 path 互为别名
+     *
+     * @param annotation
+     * @return
+     */
     @NotNull
-    private static String getPath(PsiAnnotation annotation) {
-        if (annotation == null) {
-            return "";
+    private static List<String> getPaths(@NotNull PsiAnnotation annotation) {
+        List<String> paths = getAttributeValues(annotation, "value");
+        if (paths.isEmpty()) {
+            paths = getAttributeValues(annotation, "path");
+        }
+        return paths;
+    }
+
+    /**
+     * 获取注解属性值, 兼容单个值和数组
+     *
+     * @param annotation
+     * @param attributeName
+     * @return
+     */
+    @NotNull
+    private static List<String> getAttributeValues(@NotNull PsiAnnotation annotation, String attributeName) {
+
+        List<String> values = new ArrayList<>();
+
+        PsiAnnotationMemberValue memberValue = annotation.findDeclaredAttributeValue(attributeName);
+        if (memberValue == null) {
+            return values;
         }
-        String value = AnnotationUtil.getStringAttributeValue(annotation, "value");
-        if (value != null) {
-            return value;
+
+        for (PsiAnnotationMemberValue value : AnnotationUtil.arrayAttributeValues(memberValue)) {
+            String stringValue = AnnotationUtil.getStringAttributeValue(value);
+            if (stringValue != null) {
+                values.add(stringValue);
+            } else if (value instanceof PsiReferenceExpression) {
+                // 枚举或者常量引用
+                values.add(value.getText());
+            }
         }
-        return "";
+        return values;
     }
 
 
+    @NotNull
     public static String getMethodPath(PsiMethod psiMethod) {
-        String url;
-
-        if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.GET_MAPPING, 0)) {
-            url = getPath(AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.GET_MAPPING));
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.POST_MAPPING, 0)) {
-            url = getPath(AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.POST_MAPPING));
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.PUT_MAPPING, 0)) {
-            url = getPath(AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.PUT_MAPPING));
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.DELETE_MAPPING, 0)) {
-            url = getPath(AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.DELETE_MAPPING));
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.PATCH_MAPPING, 0)) {
-            url = getPath(AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.PATCH_MAPPING));
-        } else if (AnnotationUtil.isAnnotated(psiMethod, AnnotationConstant.REQUEST_MAPPING, 0)) {
-            url = getPath(AnnotationUtil.findAnnotation(psiMethod, AnnotationConstant.REQUEST_MAPPING));
-        } else {
-            url = "";
-        }
-        return url;
+        List<String> paths = getMappingInfo(psiMethod).getPaths();
+        return paths.isEmpty() ? "" : paths.get(0);
     }
 
 
@@ -180,47 +276,40 @@ public class SpringPsiUtils {
     }
 
     /**
-     * 构建 body
+     * 一次解析请求参数, 同时生成请求参数和请求示例
      *
      * @param settings
      * @param parameter
-     * @return
+     * @return first 请求参数, second 请求示例
      */
-    @Nullable
-    public static List<Body> buildBody(Settings settings, PsiParameter parameter) {
+    @NotNull
+    public static Pair<List<Body>, String> buildBodyAndJson(Settings settings, @NotNull PsiParameter parameter) {
 
+        Map<String, Object> fieldMap = new LinkedHashMap<>();
+        String name = parameter.getName();
         PsiType type = parameter.getType();
 
         // 基本类型
         if (type instanceof PsiPrimitiveType || FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
             List<Body> list = new ArrayList<>();
             list.add(buildBodyFromParameter(settings, parameter));
-            return list;
-        } else {
-            PsiClass psiClass = PsiUtil.resolveClassInType(type);
-            if (psiClass != null) {
-
-                List<Body> list = new ArrayList<>();
-
-                for (PsiField field : psiClass.getAllFields()) {
-
-                    if (settings.getExcludeFieldNames().contains(field.getName())) {
-                        continue;
-                    }
-                    // 排除掉被 static 修饰的字段
-                    if (CustomPsiUtils.hasModifierProperty(field, PsiModifier.STATIC)) {
-                        continue;
-                    }
-
-                    Body requestParam = ParamPsiUtils.buildBodyParam(settings, field, null);
-                    list.add(requestParam);
-                }
-                return list;
 
+            if (type instanceof PsiPrimitiveType) {
+                fieldMap.put(name, PsiTypesUtil.getDefaultValue(type));
+            } else {
+                fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(type.getPresentableText()));
             }
+            return Pair.create(list, GsonFormatUtil.gsonFormat(fieldMap));
         }
 
-        return null;
+        PsiClass psiClass = PsiUtil.resolveClassInType(type);
+        if (psiClass == null) {
+            return Pair.create(null, GsonFormatUtil.gsonFormat(fieldMap));
+        }
+
+        TypeSchema schema = ParamPsiUtils.getTypeSchema(settings, psiClass, null);
+
+        return Pair.create(schema.copyBodyList(), GsonFormatUtil.gsonFormat(schema.getFieldMap()));
     }
 
 
@@ -237,29 +326,6 @@ public class SpringPsiUtils {
     }
 
 
-    @NotNull
-    public static String getReqBodyJson(Settings settings, @NotNull PsiParameter parameter) {
-        Map<String, Object> fieldMap = new LinkedHashMap<>();
-        String name = parameter.getName();
-        PsiType type = parameter.getType();
-
-        if (type instanceof PsiPrimitiveType) {
-            fieldMap.put(name, PsiTypesUtil.getDefaultValue(type));
-
-        } else if (FieldTypeConstant.FIELD_TYPE.containsKey(type.getPresentableText())) {
-            fieldMap.put(name, FieldTypeConstant.FIELD_TYPE.get(type.getPresentableText()));
-        } else {
-            PsiClass psiClass = PsiUtil.resolveClassInType(type);
-            if (psiClass != null) {
-                fieldMap = ParamPsiUtils.getFieldsAndDefaultValue(psiClass, null);
-            }
-        }
-
-        return GsonFormatUtil.gsonFormat(fieldMap);
-
-    }
-
-
     /**
      * 拼装为 kv 形式的键值对
      *
@@ -276,6 +342,10 @@ public class SpringPsiUtils {
         StringBuilder paramKV = new StringBuilder();
 
         for (Param param : requestParam) {
+            // 路径参数已经在请求路径中
+            if (param.isPathVariable()) {
+                continue;
+            }
             paramKV.append("&").append(param.getName()).append("=").append(param.getExample());
         }
 
@@ -318,10 +388,18 @@ public class SpringPsiUtils {
 
         Param param = new Param();
         param.setRequired(false);
+        param.setName(parameter.getName());
 
-        if (AnnotationUtil.isAnnotated(parameter, AnnotationConstant.REQUEST_PARAM, 0)) {
+        PsiAnnotation pathVariable = parameter.getAnnotation(AnnotationConstant.PATH_VARIABLE);
+        if (pathVariable != null) {
+            // 路径参数都是必须的, 名称需要与路径中的 {name} 一致
+            param.setPathVariable(true);
+            param.setRequired(true);
+            param.setName(getParamName(pathVariable, parameter));
+        } else if (AnnotationUtil.isAnnotated(parameter, AnnotationConstant.REQUEST_PARAM, 0)) {
             PsiAnnotation annotation = parameter.getAnnotation(AnnotationConstant.REQUEST_PARAM);
             assert annotation != null;
+            param.setName(getParamName(annotation, parameter));
 
             PsiNameValuePair[] nameValuePairs = annotation.getParameterList().getAttributes();
 
@@ -337,13 +415,29 @@ public class SpringPsiUtils {
             }
         }
 
-        param.setName(parameter.getName());
         String fieldTypeName = parameter.getType().getPresentableText();
         param.setType(fieldTypeName);
 
         return param;
     }
 
+    /**
+     * 注解中指定的参数名, value 和 name 互为别名, 都没有时使用参数名
+     *
+     * @param annotation
+     * @param parameter
+     * @return
+     */
+    @NotNull
+    private static String getParamName(@NotNull PsiAnnotation annotation, @NotNull PsiParameter parameter) {
+
+        String name = AnnotationUtil.getStringAttributeValue(annotation, "value");
+        if (StringUtils.isBlank(name)) {
+            name = AnnotationUtil.getStringAttributeValue(annotation, "name");
+        }
+        return StringUtils.isBlank(name) ? parameter.getName() : name;
+    }
+
 
     /**
      * 检查方法是否满足 Spring 相关条件
@@ -362,7 +456,7 @@ public class SpringPsiUtils {
         return !psiMethod.isConstructor()
                 && CustomPsiUtils.hasModifierProperty(psiMethod, PsiModifier.PUBLIC)
                 && !CustomPsiUtils.hasModifierProperty(psiMethod, PsiModifier.STATIC)
-                && AnnotationUtil.isAnnotated(psiMethod, settings.getContainMethodAnnotationName(), 0);
+                && !Collections.disjoint(getMappingInfo(psiMethod).getAnnotationNames(), settings.getContainMethodAnnotationName());
 
     }
 
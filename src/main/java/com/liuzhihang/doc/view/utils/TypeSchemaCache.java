@@ -0,0 +1,99 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.config.TagsSettings;
+import com.liuzhihang.doc.view.dto.TypeSchema;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 项目级别的类型结构缓存
+ * <p>
+ * 以 类全名 + 泛型参数 作为 key, 缓存解析出的 Body 列表以及默认值 Map,
+ * 任意 PSI 变动或者设置、注释 tag 变动后缓存失效. 缓存的结构不可修改, 使用方需要复制.
+ * 从根节点开始的解析结果和嵌套类的解析结果分开缓存, 嵌套类只缓存与所在路径无关的结果
+ *
+ * @author liuzhihang
+ * @date 2021/4/6 14:20
+ */
+public class TypeSchemaCache {
+
+    private static final Key<CachedValue<Map<String, TypeSchema>>> SCHEMA_CACHE_KEY = Key.create("DocView.TypeSchemaCache");
+
+    private static final Key<CachedValue<Map<String, TypeSchema>>> NESTED_SCHEMA_CACHE_KEY = Key.create("DocView.NestedTypeSchemaCache");
+
+    /**
+     * 获取类型结构缓存
+     *
+     * @param project 当前项目
+     * @return key -> 类型结构
+     */
+    @NotNull
+    public static Map<String, TypeSchema> getSchemaCache(@NotNull Project project) {
+        return getCache(project, SCHEMA_CACHE_KEY);
+    }
+
+    /**
+     * 获取嵌套类的类型结构缓存, key 不包含泛型参数
+     *
+     * @param project 当前项目
+     * @return key -> 类型结构
+     */
+    @NotNull
+    public static Map<String, TypeSchema> getNestedSchemaCache(@NotNull Project project) {
+        return getCache(project, NESTED_SCHEMA_CACHE_KEY);
+    }
+
+    @NotNull
+    private static Map<String, TypeSchema> getCache(@NotNull Project project, @NotNull Key<CachedValue<Map<String, TypeSchema>>> key) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, key,
+                () -> CachedValueProvider.Result.create(new ConcurrentHashMap<>(64),
+                        PsiModificationTracker.getInstance(project),
+                        Settings.getInstance(project).getModificationTracker(),
+                        TagsSettings.getInstance(project).getModificationTracker()), false);
+    }
+
+    /**
+     * 生成缓存 key, 匿名类等没有全名的类不缓存
+     *
+     * @param psiClass   类
+     * @param genericArr 泛型参数
+     * @return key, 为 null 时不缓存
+     */
+    @Nullable
+    public static String buildKey(@NotNull PsiClass psiClass, PsiType[] genericArr) {
+
+        String qualifiedName = psiClass.getQualifiedName();
+
+        if (qualifiedName == null) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(qualifiedName);
+
+        if (genericArr != null && genericArr.length > 0) {
+            key.append("<");
+            for (int i = 0; i < genericArr.length; i++) {
+                if (i > 0) {
+                    key.append(",");
+                }
+                key.append(genericArr[i].getCanonicalText());
+            }
+            key.append(">");
+        }
+
+        return key.toString();
+    }
+
+}
@@ -1,51 +1,143 @@
 package com.liuzhihang.doc.view.utils;
 
+import com.intellij.openapi.diagnostic.Logger;
 import com.liuzhihang.doc.view.dto.DocViewData;
-import org.apache.commons.collections.ExtendedProperties;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.VelocityException;
 import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 根据模版生成对应的内容
+ * <p>
+ * 模版解析后按内容摘要缓存, 同一模版只解析一次
  *
  * @author liuzhihang
  * @date 2020/11/21 15:38
  */
 public class VelocityUtils {
 
-    private static VelocityEngine engine;
+    private static final Logger LOGGER = Logger.getInstance(VelocityUtils.class);
+
+    private static RuntimeInstance runtime;
     private static String VM_LOG_TAG = "DocView VelocityUtils";
 
+    /**
+     * 模版内容摘要 -> 解析后的模版
+     */
+    private static final Map<String, Template> TEMPLATE_CACHE = new ConcurrentHashMap<>();
+
     static {
-        engine = new VelocityEngine();
-        engine.setProperty(RuntimeConstants.PARSER_POOL_SIZE, 20);
-        engine.setProperty(RuntimeConstants.INPUT_ENCODING, "UTF-8");
-        engine.setProperty(RuntimeConstants.OUTPUT_ENCODING, "UTF-8");
+        runtime = new RuntimeInstance();
+        runtime.setProperty(RuntimeConstants.PARSER_POOL_SIZE, 20);
+        runtime.setProperty(RuntimeConstants.INPUT_ENCODING, "UTF-8");
+        runtime.setProperty(RuntimeConstants.OUTPUT_ENCODING, "UTF-8");
 
         Properties props = new Properties();
         props.put("runtime.log.logsystem.class", "org.apache.velocity.runtime.log.SimpleLog4JLogSystem");
         props.put("runtime.log.logsystem.log4j.category", "velocity");
         props.put("runtime.log.logsystem.log4j.logger", "velocity");
-        engine.init(props);
+        runtime.init(props);
     }
 
     public static String convert(String template, DocViewData data) {
 
-
         StringWriter writer = new StringWriter();
+        try {
+            convert(template, data, writer);
+        } catch (IOException e) {
+            // StringWriter 不会出现 IOException
+            LOGGER.error(e);
+        }
+
+        return writer.toString();
+    }
+
+    /**
+     * 按模版直接渲染到 writer 中, 导出时不在内存中拼接完整文档
+     *
+     * @param template 模版内容
+     * @param data     文档数据
+     * @param writer   输出
+     * @throws IOException 写入失败
+     */
+    public static void convert(String template, DocViewData data, Writer writer) throws IOException {
+
         VelocityContext velocityContext = new VelocityContext();
         velocityContext.put("DocView", data);
-        boolean isSuccess = engine.evaluate(velocityContext, writer, VM_LOG_TAG, template);
-        if (!isSuccess) {
 
+        try {
+            getTemplate(template).merge(velocityContext, writer);
+        } catch (ParseException e) {
+            // 保存时已经校验, 这里是历史保存的错误模版, 直接输出模版内容
+            LOGGER.warn("DocView template parse error: " + e.getMessage());
+            writer.write(template);
+        } catch (VelocityException e) {
+            // velocity 会将写入时的 IOException 包装
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
         }
+    }
 
+    /**
+     * 校验模版是否可以解析
+     *
+     * @param template 模版内容
+     * @return 错误信息, 为 null 时校验通过
+     */
+    @Nullable
+    public static String validate(String template) {
+        try {
+            getTemplate(template);
+            return null;
+        } catch (ParseException e) {
+            return e.getMessage();
+        }
+    }
 
-        return writer.toString();
+    /**
+     * 模版设置变动后清空缓存
+     */
+    public static void clearCache() {
+        TEMPLATE_CACHE.clear();
+    }
+
+    @NotNull
+    private static Template getTemplate(String template) throws ParseException {
+
+        String key = DigestUtils.md5Hex(template);
+
+        Template cached = TEMPLATE_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        SimpleNode node = runtime.parse(new StringReader(template), VM_LOG_TAG);
+
+        Template compiled = new Template();
+        compiled.setName(VM_LOG_TAG);
+        compiled.setRuntimeServices(runtime);
+        compiled.setData(node);
+        compiled.initDocument();
+
+        TEMPLATE_CACHE.put(key, compiled);
+        return compiled;
     }
 
 }
@@ -0,0 +1,150 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.liuzhihang.doc.view.dto.DocView;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 将全部文档顺序写入一个 zip 文件, 目录结构和导出到文件夹时相同
+ * <p>
+ * 先写入同目录下的临时文件, 完成后重命名, 取消时删除临时文件.
+ * 每个条目单独选择存储方式: 内容先写入缓冲, 不超过 STORED_MAX_SIZE 时直接存储, 超过后再开始压缩并继续流式写入
+ *
+ * @author liuzhihang
+ * @date 2021/4/13 19:40
+ */
+public class ZipExportWriter implements ExportWriter {
+
+    /**
+     * 不超过该大小的条目直接存储, 压缩节省的空间不足以抵消压缩数据的额外开销
+     */
+    private static final int STORED_MAX_SIZE = 256;
+
+    private final File zipFile;
+    private final File tempFile;
+    private final ZipOutputStream zipOutputStream;
+
+    /**
+     * 压缩级别为 0 时全部条目直接存储
+     */
+    private final boolean storeAll;
+
+    /**
+     * 已写入的路径, zip 中不允许重复的条目
+     */
+    private final Set<String> pathSet = new HashSet<>();
+
+    private boolean finished;
+
+    /**
+     * @param zipFile 导出的 zip 文件
+     * @param level   压缩级别 0-9, 为 null 或者超出范围时使用默认级别
+     * @throws IOException 创建失败
+     */
+    public ZipExportWriter(@NotNull File zipFile, Integer level) throws IOException {
+        this.zipFile = zipFile;
+        FileUtil.createParentDirs(zipFile);
+        this.tempFile = File.createTempFile("." + zipFile.getName() + "-", ".tmp", zipFile.getParentFile());
+        this.zipOutputStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)), StandardCharsets.UTF_8);
+        int compressionLevel = level == null || level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION
+                ? Deflater.DEFAULT_COMPRESSION : level;
+        this.zipOutputStream.setLevel(compressionLevel);
+        this.storeAll = compressionLevel == Deflater.NO_COMPRESSION;
+    }
+
+    @Override
+    public boolean write(@NotNull String path, @NotNull DocView docView, @NotNull Markdown markdown) throws IOException {
+
+        if (!pathSet.add(path)) {
+            return false;
+        }
+
+        EntryOutputStream entryOutputStream = new EntryOutputStream(path);
+        Writer writer = new OutputStreamWriter(entryOutputStream, StandardCharsets.UTF_8);
+        markdown.writeTo(writer);
+        writer.flush();
+        entryOutputStream.closeEntry();
+        return true;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        zipOutputStream.close();
+        ExportUtils.moveFile(tempFile, zipFile);
+        finished = true;
+    }
+
+    @Override
+    public void close() {
+        if (finished) {
+            return;
+        }
+        try {
+            zipOutputStream.close();
+        } catch (IOException ignored) {
+            // 丢弃未完成的文件
+        }
+        FileUtil.delete(tempFile);
+    }
+
+    /**
+     * 一个条目的输出, 内容较少时先缓冲, 结束时根据大小选择直接存储或者压缩
+     */
+    private class EntryOutputStream extends OutputStream {
+
+        private final String path;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(STORED_MAX_SIZE);
+
+        /**
+         * 已经按压缩条目写入 zip
+         */
+        private boolean deflated;
+
+        private EntryOutputStream(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) throws IOException {
+            if (!deflated && !storeAll && buffer.size() + len > STORED_MAX_SIZE) {
+                zipOutputStream.putNextEntry(new ZipEntry(path));
+                buffer.writeTo(zipOutputStream);
+                deflated = true;
+            }
+            if (deflated) {
+                zipOutputStream.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        private void closeEntry() throws IOException {
+            if (!deflated) {
+                CRC32 crc = new CRC32();
+                crc.update(buffer.toByteArray());
+                ZipEntry entry = new ZipEntry(path);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(buffer.size());
+                entry.setCompressedSize(buffer.size());
+                entry.setCrc(crc.getValue());
+                zipOutputStream.putNextEntry(entry);
+                buffer.writeTo(zipOutputStream);
+            }
+            zipOutputStream.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.liuzhihang.doc.view.dto.EndpointItem;
+import com.liuzhihang.doc.view.dto.EndpointSummary;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * 接口搜索的匹配规则
+ *
+ * @author liuzhihang
+ * @date 2021/4/19 16:40
+ */
+public class EndpointMatcherTest {
+
+    @Test
+    public void httpMethodMustBeEqual() {
+
+        EndpointItem item = item("GET", "/user/{id}", "getUser", "查询用户");
+
+        Assert.assertTrue(new EndpointMatcher("get /user").matchingDegree(item) >= 0);
+        Assert.assertEquals(-1, new EndpointMatcher("POST /user").matchingDegree(item));
+    }
+
+    @Test
+    public void pathVariableMatchesAnyValue() {
+
+        EndpointItem item = item("GET", "/user/{id}", "getUser", "查询用户");
+
+        Assert.assertTrue(new EndpointMatcher("/user/12").matchingDegree(item) >= 0);
+        Assert.assertTrue(new EndpointMatcher("http://localhost:8080/user/12?name=a").matchingDegree(item) >= 0);
+    }
+
+    @Test
+    public void segmentsMustBeInOrder() {
+
+        EndpointItem item = item("GET", "/user/list", "listUser", "用户列表");
+
+        Assert.assertEquals(-1, new EndpointMatcher("/list/user").matchingDegree(item));
+        Assert.assertEquals(-1, new EndpointMatcher("/order").matchingDegree(item));
+        Assert.assertEquals(-1, new EndpointMatcher("/user/list/detail").matchingDegree(item));
+    }
+
+    @Test
+    public void segmentsCanBeSkipped() {
+
+        EndpointItem item = item("GET", "/admin/user/list", "listUser", "用户列表");
+
+        Assert.assertTrue(new EndpointMatcher("/admin/list").matchingDegree(item) >= 0);
+    }
+
+    @Test
+    public void completeMatchRanksFirst() {
+
+        EndpointMatcher matcher = new EndpointMatcher("/user/list");
+
+        int complete = matcher.matchingDegree(item("GET", "/user/list", "listUser", "用户列表"));
+        int partial = matcher.matchingDegree(item("GET", "/admin/user/list", "listUser", "用户列表"));
+        int prefix = matcher.matchingDegree(item("GET", "/user/listAll", "listAll", "全部用户"));
+
+        Assert.assertTrue(complete > partial);
+        Assert.assertTrue(complete > prefix);
+    }
+
+    @Test
+    public void wordMatchesDocNameAndMethodName() {
+
+        EndpointItem item = item("GET", "/user/{id}", "getUser", "查询用户");
+
+        Assert.assertTrue(new EndpointMatcher("查询").matchingDegree(item) >= 0);
+        Assert.assertTrue(new EndpointMatcher("getu").matchingDegree(item) >= 0);
+        Assert.assertTrue(new EndpointMatcher("usercontroller").matchingDegree(item) >= 0);
+        Assert.assertEquals(-1, new EndpointMatcher("订单").matchingDegree(item));
+        // 路径参数不参与名称匹配
+        Assert.assertEquals(-1, new EndpointMatcher("id").matchingDegree(item));
+    }
+
+    private static EndpointItem item(String httpMethod, String path, String methodName, String docName) {
+        EndpointSummary summary = new EndpointSummary(methodName, httpMethod, path, Collections.emptyMap(), 0, 0);
+        return new EndpointItem(null, "UserController", summary, docName);
+    }
+}
@@ -0,0 +1,210 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.liuzhihang.doc.view.dto.DocView;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * 增量导出清单
+ *
+ * @author liuzhihang
+ * @date 2021/4/19 10:20
+ */
+public class ExportManifestTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void exportAnotherSourceKeepsPreviousFiles() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        export(outputDir, "A.java", "A.java/get.md", "a");
+        ExportManifest manifest = export(outputDir, "B.java", "B.java/list.md", "b");
+
+        Assert.assertEquals(0, manifest.getDeleted());
+        Assert.assertTrue(new File(outputDir, "A.java/get.md").isFile());
+        Assert.assertTrue(new File(outputDir, "B.java/list.md").isFile());
+
+        // A 合并到新的清单中, 再次导出 A 时仍然是增量的
+        manifest = export(outputDir, "A.java", "A.java/get.md", "a");
+        Assert.assertEquals(1, manifest.getUnchanged());
+        Assert.assertTrue(new File(outputDir, "B.java/list.md").isFile());
+    }
+
+    @Test
+    public void removedEndpointIsDeleted() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("A.java");
+        write(manifest, "A.java/get.md", "get");
+        write(manifest, "A.java/post.md", "post");
+        manifest.finish();
+
+        manifest = export(outputDir, "A.java", "A.java/get.md", "get");
+
+        Assert.assertEquals(1, manifest.getUnchanged());
+        Assert.assertEquals(1, manifest.getDeleted());
+        Assert.assertTrue(new File(outputDir, "A.java/get.md").isFile());
+        Assert.assertFalse(new File(outputDir, "A.java/post.md").exists());
+    }
+
+    @Test
+    public void packageFoldersWithSameClassName() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("com/foo/UserController");
+        write(manifest, "com/foo/UserController/get.md", "get");
+        write(manifest, "com/foo/UserController/post.md", "post");
+        manifest.source("com/bar/UserController");
+        write(manifest, "com/bar/UserController/get.md", "bar");
+        manifest.finish();
+
+        manifest = export(outputDir, "com/foo/UserController", "com/foo/UserController/get.md", "get");
+
+        Assert.assertEquals(1, manifest.getDeleted());
+        Assert.assertFalse(new File(outputDir, "com/foo/UserController/post.md").exists());
+        Assert.assertTrue(new File(outputDir, "com/bar/UserController/get.md").isFile());
+    }
+
+    @Test
+    public void sourceWithoutEndpointsIsPruned() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        export(outputDir, "A.java", "A.java/get.md", "get");
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("A.java");
+        manifest.finish();
+
+        Assert.assertEquals(1, manifest.getDeleted());
+        Assert.assertFalse(new File(outputDir, "A.java").exists());
+    }
+
+    @Test
+    public void changedContentIsRewritten() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        export(outputDir, "A.java", "A.java/get.md", "old");
+        ExportManifest manifest = export(outputDir, "A.java", "A.java/get.md", "new");
+
+        Assert.assertEquals(0, manifest.getUnchanged());
+        Assert.assertEquals("new", new String(Files.readAllBytes(new File(outputDir, "A.java/get.md").toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void failedDocumentKeepsPreviousFile() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        export(outputDir, "A.java", "A.java/get.md", "get");
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("A.java");
+        manifest.keep("A.java/get.md");
+        manifest.finish();
+
+        Assert.assertEquals(0, manifest.getDeleted());
+        Assert.assertTrue(new File(outputDir, "A.java/get.md").isFile());
+    }
+
+    @Test
+    public void unchangedSourceKeepsPreviousFiles() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("A");
+        manifest.fingerprint("A", "f1", Collections.singletonList("file:///B.java"));
+        write(manifest, "A/get.md", "get");
+        write(manifest, "A/Models.md", "models");
+        manifest.finish();
+
+        manifest = ExportManifest.load(outputDir);
+        Assert.assertEquals(Collections.singletonList("file:///B.java"), manifest.getDependencies("A"));
+        Assert.assertFalse(manifest.keepSource("A", "f2"));
+        Assert.assertTrue(manifest.keepSource("A", "f1"));
+        manifest.finish();
+
+        Assert.assertEquals(2, manifest.getUnchanged());
+        Assert.assertEquals(0, manifest.getDeleted());
+        Assert.assertTrue(new File(outputDir, "A/get.md").isFile());
+
+        // 指纹合并到新的清单中
+        Assert.assertTrue(ExportManifest.load(outputDir).keepSource("A", "f1"));
+    }
+
+    @Test
+    public void missingFileIsNotKept() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("A");
+        manifest.fingerprint("A", "f1", Collections.emptyList());
+        write(manifest, "A/get.md", "get");
+        manifest.finish();
+
+        Assert.assertTrue(new File(outputDir, "A/get.md").delete());
+        Assert.assertFalse(ExportManifest.load(outputDir).keepSource("A", "f1"));
+    }
+
+    @Test
+    public void failedDocumentClearsFingerprint() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        export(outputDir, "A", "A/get.md", "get");
+
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source("A");
+        manifest.fingerprint("A", "f1", Collections.emptyList());
+        manifest.keep("A/get.md");
+        manifest.finish();
+
+        Assert.assertNull(ExportManifest.load(outputDir).getDependencies("A"));
+    }
+
+    @Test
+    public void previousManifestFormatIsLoaded() throws IOException {
+
+        File outputDir = temporaryFolder.getRoot();
+
+        File file = new File(outputDir, "A/get.md");
+        Assert.assertTrue(file.getParentFile().mkdirs());
+        Files.write(file.toPath(), "get".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(outputDir, ExportManifest.MANIFEST_NAME).toPath(),
+                "{\"A/get.md\":\"b5eda0a74558a342cf659187f06f746f\"}".getBytes(StandardCharsets.UTF_8));
+
+        ExportManifest manifest = export(outputDir, "A", "A/get.md", "get");
+
+        Assert.assertEquals(1, manifest.getUnchanged());
+    }
+
+    private static ExportManifest export(File outputDir, String source, String path, String text) throws IOException {
+        ExportManifest manifest = ExportManifest.load(outputDir);
+        manifest.source(source);
+        write(manifest, path, text);
+        manifest.finish();
+        return manifest;
+    }
+
+    private static void write(ExportManifest manifest, String path, String text) throws IOException {
+        manifest.write(path, new DocView(), writer -> writer.write(text));
+    }
+}
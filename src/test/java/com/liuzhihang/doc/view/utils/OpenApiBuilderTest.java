@@ -0,0 +1,147 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.liuzhihang.doc.view.dto.Body;
+import com.liuzhihang.doc.view.dto.DocView;
+import com.liuzhihang.doc.view.dto.Param;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OpenAPI 文档生成
+ *
+ * @author liuzhihang
+ * @date 2021/4/19 15:30
+ */
+public class OpenApiBuilderTest {
+
+    @Test
+    public void pathVariableAndQueryParam() {
+
+        DocView docView = docView("UserController", "getUser", "GET", "/user/{id}");
+        docView.setReqParamList(new ArrayList<>());
+        docView.getReqParamList().add(param("id", "Long", true));
+        docView.getReqParamList().add(param("fields", "String", false));
+
+        JsonObject operation = operation(build(docView), "/user/{id}", "get");
+        JsonArray parameters = operation.getAsJsonArray("parameters");
+
+        Assert.assertEquals(2, parameters.size());
+        JsonObject id = parameters.get(0).getAsJsonObject();
+        Assert.assertEquals("path", id.get("in").getAsString());
+        Assert.assertTrue(id.get("required").getAsBoolean());
+        Assert.assertEquals("integer", id.getAsJsonObject("schema").get("type").getAsString());
+        Assert.assertEquals("query", parameters.get(1).getAsJsonObject().get("in").getAsString());
+        Assert.assertEquals("UserController_getUser", operation.get("operationId").getAsString());
+    }
+
+    @Test
+    public void requestBodyKeepsOtherParams() {
+
+        DocView docView = docView("UserController", "update", "PUT", "/user/{id}");
+        docView.setReqParamList(Collections.singletonList(param("id", "Long", true)));
+        docView.setReqBodyList(Collections.singletonList(body("name", "String")));
+        docView.setReqBodyClassName("com.example.UserReq");
+
+        JsonObject root = build(docView);
+        JsonObject operation = operation(root, "/user/{id}", "put");
+
+        Assert.assertEquals(1, operation.getAsJsonArray("parameters").size());
+        JsonObject schema = operation.getAsJsonObject("requestBody").getAsJsonObject("content")
+                .getAsJsonObject("application/json").getAsJsonObject("schema");
+        Assert.assertEquals("#/components/schemas/UserReq", schema.get("$ref").getAsString());
+        Assert.assertTrue(schemas(root).getAsJsonObject("UserReq").getAsJsonObject("properties").has("name"));
+    }
+
+    @Test
+    public void genericResponseIsReferenced() {
+
+        DocView docView = docView("UserController", "list", "GET", "/user");
+        docView.setRespBodyList(Collections.singletonList(body("data", "List<User>")));
+        docView.setRespBodyClassName("com.example.Result<java.util.List<com.example.User>>");
+
+        JsonObject root = build(docView);
+        JsonObject schema = operation(root, "/user", "get").getAsJsonObject("responses").getAsJsonObject("200")
+                .getAsJsonObject("content").getAsJsonObject("application/json").getAsJsonObject("schema");
+
+        Assert.assertEquals("#/components/schemas/Result_List_User", schema.get("$ref").getAsString());
+        Assert.assertTrue(schemas(root).has("Result_List_User"));
+    }
+
+    @Test
+    public void duplicateEndpointIsReported() {
+
+        OpenApiBuilder builder = new OpenApiBuilder("test", "1.0.0");
+        builder.add(docView("UserController", "get", "GET", "/user"));
+        builder.add(docView("UserController", "get", "POST", "/user"));
+        builder.add(docView("AdminController", "get", "GET", "/user"));
+
+        JsonObject pathItem = builder.build().getAsJsonObject("paths").getAsJsonObject("/user");
+
+        Assert.assertEquals("UserController_get", pathItem.getAsJsonObject("get").get("operationId").getAsString());
+        // 重载方法的 operationId 追加序号
+        Assert.assertEquals("UserController_get_1", pathItem.getAsJsonObject("post").get("operationId").getAsString());
+        Assert.assertEquals(Collections.singletonList("GET /user AdminController#get"), builder.getConflictList());
+    }
+
+    @Test
+    public void writeYaml() throws IOException {
+
+        DocView docView = docView("UserController", "getUser", "GET", "/user");
+
+        StringWriter writer = new StringWriter();
+        OpenApiBuilder.write(build(docView), writer, true);
+
+        String yaml = writer.toString();
+        Assert.assertTrue(yaml.startsWith("\"openapi\": \"3.0.3\"\n"));
+        Assert.assertTrue(yaml.contains("    \"get\":\n"));
+        Assert.assertTrue(yaml.contains("\"operationId\": \"UserController_getUser\""));
+    }
+
+    private static JsonObject build(DocView docView) {
+        OpenApiBuilder builder = new OpenApiBuilder("test", "1.0.0");
+        builder.add(docView);
+        return builder.build();
+    }
+
+    private static JsonObject operation(JsonObject root, String path, String method) {
+        return root.getAsJsonObject("paths").getAsJsonObject(path).getAsJsonObject(method);
+    }
+
+    private static JsonObject schemas(JsonObject root) {
+        return root.getAsJsonObject("components").getAsJsonObject("schemas");
+    }
+
+    private static DocView docView(String className, String methodName, String method, String path) {
+        DocView docView = new DocView(methodName);
+        docView.setClassName(className);
+        docView.setMethodName(methodName);
+        docView.setMethod(method);
+        docView.setPath(path);
+        return docView;
+    }
+
+    private static Param param(String name, String type, boolean pathVariable) {
+        Param param = new Param();
+        param.setName(name);
+        param.setType(type);
+        param.setRequired(false);
+        param.setPathVariable(pathVariable);
+        return param;
+    }
+
+    private static Body body(String name, String type) {
+        Body body = new Body();
+        body.setName(name);
+        body.setType(type);
+        body.setRequired(false);
+        return body;
+    }
+}
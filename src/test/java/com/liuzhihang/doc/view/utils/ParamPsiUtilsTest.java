@@ -0,0 +1,74 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.dto.Body;
+
+import java.util.List;
+
+/**
+ * 字段解析的循环引用、深度和字段数量限制
+ *
+ * @author liuzhihang
+ * @date 2021/4/19 17:10
+ */
+public class ParamPsiUtilsTest extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            // 轻量测试的项目会复用, 恢复默认设置
+            Settings.getInstance(getProject()).loadState(new Settings());
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testCycleIsReplacedByRef() {
+
+        PsiClass node = myFixture.addClass("public class Node { private String name; private Node next; }");
+
+        List<Body> bodyList = ParamPsiUtils.buildBodyList(getSettings(), node, null);
+
+        assertEquals(2, bodyList.size());
+        Body next = bodyList.get(1);
+        assertEquals("next", next.getName());
+        assertEquals(1, next.getBodyList().size());
+        assertEquals(ParamContext.refName(node), next.getBodyList().get(0).getName());
+        assertEquals(ParamContext.refName(node), ParamPsiUtils.getFieldsAndDefaultValue(node, null).get("next"));
+    }
+
+    public void testMaxDepth() {
+
+        myFixture.addClass("public class Child { private String name; }");
+        PsiClass parent = myFixture.addClass("public class Parent { private Child child; }");
+
+        List<Body> bodyList = ParamPsiUtils.buildBodyList(getSettings(), parent, null);
+        assertEquals(1, bodyList.get(0).getBodyList().size());
+
+        getSettings().setMaxDepth(1);
+
+        bodyList = ParamPsiUtils.buildBodyList(getSettings(), parent, null);
+        assertEquals("child", bodyList.get(0).getName());
+        assertEmpty(bodyList.get(0).getBodyList());
+    }
+
+    public void testMaxFieldCount() {
+
+        PsiClass user = myFixture.addClass("public class User { private String a; private String b; private String c; }");
+
+        getSettings().setMaxFieldCount(2);
+
+        List<Body> bodyList = ParamPsiUtils.buildBodyList(getSettings(), user, null);
+        // 截断时有一行占位
+        assertEquals(3, bodyList.size());
+        assertEquals("b", bodyList.get(1).getName());
+        assertEquals(ParamContext.TRUNCATED_NAME, bodyList.get(2).getName());
+        assertEquals(2, ParamPsiUtils.getFieldsAndDefaultValue(user, null).size());
+    }
+
+    private Settings getSettings() {
+        return Settings.getInstance(getProject());
+    }
+}
@@ -0,0 +1,103 @@
+package com.liuzhihang.doc.view.utils;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import com.liuzhihang.doc.view.config.Settings;
+import com.liuzhihang.doc.view.dto.Body;
+import com.liuzhihang.doc.view.dto.TypeSchema;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类型结构缓存
+ *
+ * @author liuzhihang
+ * @date 2021/4/19 17:10
+ */
+public class TypeSchemaCacheTest extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            // 轻量测试的项目会复用, 恢复默认设置
+            Settings.getInstance(getProject()).loadState(new Settings());
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testSettingsChangeInvalidatesCache() {
+
+        PsiClass user = myFixture.addClass("public class User { private String name; private String password; }");
+
+        TypeSchema schema = ParamPsiUtils.getTypeSchema(getSettings(), user, null);
+        assertSame(schema, ParamPsiUtils.getTypeSchema(getSettings(), user, null));
+
+        getSettings().setExcludeFieldNames(Collections.singleton("password"));
+
+        TypeSchema changed = ParamPsiUtils.getTypeSchema(getSettings(), user, null);
+        assertNotSame(schema, changed);
+        assertEquals(1, changed.getBodyList().size());
+        assertEquals("name", changed.getBodyList().get(0).getName());
+    }
+
+    public void testCopiesDoNotChangeCache() {
+
+        myFixture.addClass("public class Child { private String name; }");
+        PsiClass parent = myFixture.addClass("public class Parent { private String name; private Child child; }");
+
+        List<Body> bodyList = ParamPsiUtils.buildBodyList(getSettings(), parent, null);
+        bodyList.get(0).setDesc("changed");
+        bodyList.get(1).getBodyList().clear();
+
+        Map<String, Object> fieldMap = ParamPsiUtils.getFieldsAndDefaultValue(parent, null);
+        fieldMap.put("name", "changed");
+        ((Map<?, ?>) fieldMap.get("child")).clear();
+
+        TypeSchema schema = ParamPsiUtils.getTypeSchema(getSettings(), parent, null);
+        assertFalse("changed".equals(schema.getBodyList().get(0).getDesc()));
+        assertEquals(1, schema.getBodyList().get(1).getBodyList().size());
+        assertFalse("changed".equals(schema.getFieldMap().get("name")));
+        assertEquals(1, ((Map<?, ?>) schema.getFieldMap().get("child")).size());
+    }
+
+    public void testNestedSchemaIsSharedByRoots() {
+
+        myFixture.addClass("public class Item { private String name; private Long price; }");
+        PsiClass order = myFixture.addClass("public class Order { private Item item; }");
+        PsiClass cart = myFixture.addClass("public class Cart { private java.util.List<Item> items; }");
+
+        ParamPsiUtils.getTypeSchema(getSettings(), order, null);
+
+        TypeSchema item = TypeSchemaCache.getNestedSchemaCache(getProject()).get("Item");
+        assertNotNull(item);
+        assertEquals(2, item.getBodyList().size());
+
+        List<Body> bodyList = ParamPsiUtils.buildBodyList(getSettings(), cart, null);
+        assertEquals("items", bodyList.get(0).getName());
+        assertEquals(2, bodyList.get(0).getBodyList().size());
+        assertEquals("name", bodyList.get(0).getBodyList().get(0).getName());
+    }
+
+    public void testPathDependentNestedSchemaIsNotShared() {
+
+        myFixture.addClass("public class Child { private Parent parent; }");
+        PsiClass parent = myFixture.addClass("public class Parent { private Child child; }");
+        PsiClass child = myFixture.findClass("Child");
+
+        // Child 中引用了上层的 Parent, 其结果与路径有关
+        ParamPsiUtils.getTypeSchema(getSettings(), parent, null);
+        assertNull(TypeSchemaCache.getNestedSchemaCache(getProject()).get("Child"));
+
+        List<Body> bodyList = ParamPsiUtils.buildBodyList(getSettings(), child, null);
+        Body parentBody = bodyList.get(0);
+        assertEquals("child", parentBody.getBodyList().get(0).getName());
+        assertEquals(ParamContext.refName(child), parentBody.getBodyList().get(0).getBodyList().get(0).getName());
+    }
+
+    private Settings getSettings() {
+        return Settings.getInstance(getProject());
+    }
+}